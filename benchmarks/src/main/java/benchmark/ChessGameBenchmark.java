@@ -0,0 +1,91 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.perft.PerftSuite;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Move validation and game-state checks on {@link ChessGame}, the work the server
+ * does for every move a player sends
+ */
+@State(Scope.Thread)
+public class ChessGameBenchmark {
+
+    @Param({"start", "kiwipete", "position4"})
+    public String position;
+
+    private ChessGame game;
+    private ChessMove firstMove;
+    private ChessGame checkmated;
+
+    @Setup
+    public void setup() {
+        game = PerftSuite.POSITIONS.stream()
+                .filter(p -> p.name().equals(position))
+                .findFirst()
+                .orElseThrow()
+                .createGame();
+        firstMove = game.allLegalMoves(game.getTeamTurn()).iterator().next();
+        checkmated = foolsMate();
+    }
+
+    @Benchmark
+    public void validMovesAllPieces(Blackhole blackhole) {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition square = ChessPosition.of(row, col);
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    blackhole.consume(game.validMoves(square));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ChessGame copyGame() {
+        return game.copy();
+    }
+
+    /**
+     * Includes the cost of {@link #copyGame()} so each invocation starts from the same position
+     */
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        ChessGame copy = game.copy();
+        copy.makeMove(firstMove);
+        return copy;
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmateMated() {
+        return checkmated.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    private static ChessGame foolsMate() {
+        ChessGame mated = new ChessGame();
+        try {
+            mated.makeMove(new ChessMove(ChessPosition.of(2, 6), ChessPosition.of(3, 6), null));
+            mated.makeMove(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+            mated.makeMove(new ChessMove(ChessPosition.of(2, 7), ChessPosition.of(4, 7), null));
+            mated.makeMove(new ChessMove(ChessPosition.of(8, 4), ChessPosition.of(4, 8), null));
+        } catch (InvalidMoveException e) {
+            throw new IllegalStateException(e);
+        }
+        return mated;
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.DatabaseManager;
+import dataaccess.MemoryDataAccess;
+import dataaccess.MySqlDataAccess;
+import datamodel.AuthData;
+import datamodel.GameData;
+import datamodel.UserData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+
+/**
+ * The {@link DataAccess} calls behind listing, loading and saving games.
+ * <p>
+ * Only the memory backend runs by default. The {@code mysql} backend clears its
+ * database, so it has to be asked for with {@code -p backend=mysql} and given a
+ * scratch database with {@code -Dbench.db.name=...}; it never touches the database
+ * named in the server's db.properties.
+ */
+@State(Scope.Benchmark)
+public class DataAccessBenchmark {
+
+    private static final String AUTH_TOKEN = "benchmark-token";
+    private static final int GAME_COUNT = 20;
+    private static final String SCRATCH_DATABASE_PROPERTY = "bench.db.name";
+
+    @Param({"memory"})
+    public String backend;
+
+    private DataAccess dataAccess;
+    private ChessGame game;
+    // Each save bumps the stored version, so the next one has to expect the bumped value
+    private int version;
+
+    @Setup
+    public void setup() throws DataAccessException {
+        dataAccess = switch (backend) {
+            case "memory" -> new MemoryDataAccess();
+            case "mysql" -> {
+                String scratch = System.getProperty(SCRATCH_DATABASE_PROPERTY);
+                if (scratch == null || scratch.isBlank()) {
+                    throw new IllegalStateException("The mysql backend clears its database; name a scratch database with -D"
+                            + SCRATCH_DATABASE_PROPERTY + "=...");
+                }
+                DatabaseManager.useDatabase(scratch);
+                yield new MySqlDataAccess();
+            }
+            default -> throw new IllegalArgumentException("Unknown backend " + backend);
+        };
+        dataAccess.clear();
+        dataAccess.saveUser(new UserData("bench", "password", "bench@example.com"));
+        dataAccess.saveAuth(new AuthData("bench", AUTH_TOKEN));
+        game = new ChessGame();
+        version = 0;
+        for (int gameID = 1; gameID <= GAME_COUNT; gameID++) {
+            dataAccess.saveGame(new GameData(gameID, "bench", null, "game" + gameID, new ChessGame()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws DataAccessException {
+        dataAccess.clear();
+    }
+
+    @Benchmark
+    public AuthData getAuth() throws DataAccessException {
+        return dataAccess.getAuth(AUTH_TOKEN);
+    }
+
+    @Benchmark
+    public GameData getGame() throws DataAccessException {
+        return dataAccess.getGame(1);
+    }
+
+    @Benchmark
+    public List<GameData> listGames() throws DataAccessException {
+        return dataAccess.listGames(AUTH_TOKEN);
+    }
+
+    @Benchmark
+    public void saveUpdatedGame() throws DataAccessException {
+        dataAccess.saveUpdatedGame(game, 1, version++);
+    }
+}
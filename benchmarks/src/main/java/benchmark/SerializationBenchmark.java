@@ -0,0 +1,59 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.GameCodec;
+import chess.perft.PerftSuite;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Gson encoding of {@link ChessGame}, which is how games are sent to clients, and the
+ * {@link GameCodec} binary encoding they are stored in
+ */
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private final Gson serializer = new Gson();
+    private ChessGame game;
+    private String json;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        game = PerftSuite.POSITIONS.get(1).createGame();
+        json = serializer.toJson(game);
+        encoded = GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return serializer.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return serializer.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        return GameCodec.decode(encoded);
+    }
+
+    /**
+     * Decodes and then asks for moves, so the lazily rebuilt board state is included
+     */
+    @Benchmark
+    public int roundTrip() {
+        ChessGame decoded = serializer.fromJson(serializer.toJson(game), ChessGame.class);
+        return decoded.allLegalMoves(decoded.getTeamTurn()).size();
+    }
+}
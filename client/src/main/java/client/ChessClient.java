@@ -263,9 +263,9 @@ public class ChessClient implements NotificationHandler {
             int pieceRow = Character.getNumericValue(moveInput.charAt(1));
             int positionColumn = columnToInteger(String.valueOf(moveInput.charAt(2)));
             int positionRow = Character.getNumericValue(moveInput.charAt(3));
-            ChessPosition oldPosition = new ChessPosition(pieceRow, pieceColumn);
+            ChessPosition oldPosition = ChessPosition.of(pieceRow, pieceColumn);
             ChessPiece movingPiece = server.getGame(myGameID).game().getBoard().getPiece(oldPosition);
-            ChessPosition newPosition = new ChessPosition(positionRow, positionColumn);
+            ChessPosition newPosition = ChessPosition.of(positionRow, positionColumn);
             ChessPiece.PieceType newType = null;
             if (movingPiece.getPieceType() == ChessPiece.PieceType.PAWN && (newPosition.getRow() == 1 || newPosition.getRow() == 8)) {
                 System.out.println("How would you like to promote your pawn? (Queen, Knight, Rook, or Bishop): ");
@@ -289,7 +289,7 @@ public class ChessClient implements NotificationHandler {
             }
             int pieceColumn = columnToInteger(String.valueOf(moveInput.charAt(0)));
             int pieceRow = Character.getNumericValue(moveInput.charAt(1));
-            ChessPosition position = new ChessPosition(pieceRow, pieceColumn);
+            ChessPosition position = ChessPosition.of(pieceRow, pieceColumn);
             return drawBoard(myTeam, server.getGame(myGameID).game().getBoard(), position);
         } catch (Exception e) {
             return "Unable to highlight pieces.\n" + help();
@@ -410,7 +410,7 @@ public class ChessClient implements NotificationHandler {
     }
 
     private boolean shouldHighlightSquare(int row, int col, ChessPosition position) throws Exception {
-        ChessMove potentialMove = new ChessMove(position, new ChessPosition(row, col), null);
+        ChessMove potentialMove = new ChessMove(position, ChessPosition.of(row, col), null);
         if (server.getGame(myGameID).game().validMoves(position).contains(potentialMove)) {
             return true;
         }
@@ -446,7 +446,7 @@ public class ChessClient implements NotificationHandler {
         if (shouldHighlight) {
             bgColor = isWhiteSquare ? EscapeSequences.SET_BG_COLOR_GREEN : EscapeSequences.SET_BG_COLOR_DARK_GREEN;
         }
-        ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+        ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
         chessSquare += bgColor + EscapeSequences.SET_TEXT_COLOR_BLACK;
         if (piece != null) {
             chessSquare += pieceIcon(piece);
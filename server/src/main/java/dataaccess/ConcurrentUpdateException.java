@@ -0,0 +1,13 @@
+package dataaccess;
+
+/**
+ * Indicates a game was changed by someone else between reading it and saving it
+ */
+public class ConcurrentUpdateException extends DataAccessException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,319 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of database connections, so each DAO call reuses an open connection
+ * instead of paying for a new TCP and MySQL handshake.
+ * <p>
+ * Borrowed connections are wrappers whose {@code close()} hands the real connection
+ * back to the pool, so callers keep using try-with-resources exactly as before. At
+ * most {@code maxSize} connections are out at once; a borrower waits up to the
+ * borrow timeout for one to come back and then gets an exception. A connection that
+ * has sat idle for a while is checked with {@link Connection#isValid} before it is
+ * handed out, and a background thread closes connections idle longer than the idle
+ * timeout, down to {@code minSize}, and opens new ones up to it.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * @param minSize        connections to keep open even when idle
+     * @param maxSize        most connections open at once
+     * @param borrowTimeout  how long {@link #borrow()} waits when all are in use
+     * @param idleTimeout    how long an idle connection above minSize is kept
+     * @param validateAfter  idle time after which a connection is checked before reuse
+     */
+    public record Settings(int minSize, int maxSize, Duration borrowTimeout, Duration idleTimeout, Duration validateAfter) {
+
+        public static final Settings DEFAULT = new Settings(2, 10, Duration.ofSeconds(5), Duration.ofMinutes(5), Duration.ofMillis(500));
+
+        public Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Pool needs 0 <= minSize <= maxSize and maxSize >= 1, got " + minSize + " and " + maxSize);
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the pool's counters
+     *
+     * @param open       physical connections currently open
+     * @param idle       open connections waiting in the pool
+     * @param waiting    borrowers waiting for a connection
+     * @param created    connections opened since the pool started
+     * @param destroyed  connections closed since the pool started, for any reason
+     * @param borrowed   successful borrows since the pool started
+     * @param timeouts   borrows that gave up waiting
+     * @param failedValidations idle connections found broken when borrowed
+     * @param averageWaitMicros mean time a successful borrow took
+     */
+    public record Stats(int open, int idle, int waiting, long created, long destroyed, long borrowed,
+                        long timeouts, long failedValidations, long averageWaitMicros) {
+
+        public int active() {
+            return open - idle;
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    // Each borrowed connection holds one permit, which bounds the pool at maxSize
+    private final Semaphore permits;
+    // Most recently returned first, so the oldest idle connections collect at the tail
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService evictor;
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failedValidations = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, settings.idleTimeout().toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Takes a connection from the pool, opening one if none are idle. Closing the
+     * returned connection gives it back.
+     *
+     * @throws SQLTransientConnectionException if none came free within the borrow timeout
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException(String.format("No connection available after %d ms; %d of %d in use",
+                        settings.borrowTimeout().toMillis(), settings.maxSize() - idle.size(), settings.maxSize()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(factory.open());
+                open.incrementAndGet();
+                created.increment();
+            }
+            borrowed.increment();
+            waitNanos.add(System.nanoTime() - start);
+            return lease(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public Stats stats() {
+        long borrows = borrowed.sum();
+        return new Stats(open.get(), idle.size(), permits.getQueueLength(), created.sum(), destroyed.sum(), borrows,
+                timeouts.sum(), failedValidations.sum(), borrows == 0 ? 0 : waitNanos.sum() / borrows / 1000);
+    }
+
+    /**
+     * Closes the idle connections and stops lending new ones. Connections still
+     * borrowed are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        drainIdle();
+    }
+
+    private void drainIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * @return a working idle connection, or null if there are none
+     */
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (System.nanoTime() - pooled.lastUsed < settings.validateAfter().toNanos() || isValid(pooled)) {
+                return pooled;
+            }
+            failedValidations.increment();
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    private void giveBack(PooledConnection pooled) {
+        try {
+            if (closed || pooled.connection.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            if (!pooled.connection.getAutoCommit()) {
+                // Drop whatever the borrower left uncommitted so the next one starts clean
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.nanoTime();
+            idle.offerFirst(pooled);
+            if (closed) {
+                // close() may have drained the pool between the check above and the offer
+                drainIdle();
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes connections idle past the timeout, then opens connections up to the minimum
+     */
+    private void maintain() {
+        long cutoff = System.nanoTime() - settings.idleTimeout().toNanos();
+        for (Iterator<PooledConnection> oldest = idle.descendingIterator(); oldest.hasNext() && open.get() > settings.minSize(); ) {
+            PooledConnection pooled = oldest.next();
+            if (pooled.lastUsed - cutoff < 0 && idle.removeLastOccurrence(pooled)) {
+                destroy(pooled);
+            }
+        }
+        while (!closed && open.get() < settings.minSize() && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = new PooledConnection(factory.open());
+                open.incrementAndGet();
+                created.increment();
+                idle.offerLast(pooled);
+                if (closed) {
+                    drainIdle();
+                }
+            } catch (SQLException | RuntimeException e) {
+                // The database is unreachable; the next borrow will report it
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.connection.isValid((int) Math.max(1, settings.borrowTimeout().toSeconds()));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        open.decrementAndGet();
+        destroyed.increment();
+        try {
+            pooled.connection.close();
+        } catch (SQLException ignored) {
+            // It is being thrown away either way
+        }
+    }
+
+    private Connection lease(PooledConnection pooled) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new Lease(pooled));
+    }
+
+    private static class PooledConnection {
+        final Connection connection;
+        volatile long lastUsed = System.nanoTime();
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * One borrower's handle on a pooled connection. Closing it returns the connection
+     * once; after that every call fails, so a stale handle cannot touch a connection
+     * someone else has since borrowed.
+     */
+    private class Lease implements InvocationHandler {
+        private PooledConnection pooled;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (pooled != null) {
+                        PooledConnection returning = pooled;
+                        pooled = null;
+                        giveBack(returning);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return pooled == null || pooled.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled" + (pooled == null ? "[returned]" : "[" + pooled.connection + "]");
+                }
+                default -> {
+                    if (pooled == null) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(pooled.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
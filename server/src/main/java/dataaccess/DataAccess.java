@@ -7,6 +7,12 @@ import datamodel.*;
 import java.util.List;
 
 public interface DataAccess {
+    /**
+     * How many times a game write is tried against a freshly read copy before giving up
+     * with {@link ConcurrentUpdateException}
+     */
+    int MAX_UPDATE_ATTEMPTS = 3;
+
     void clear() throws DataAccessException;
     void saveUser(UserData user) throws DataAccessException;
     UserData getUser(String username) throws DataAccessException;
@@ -16,9 +22,30 @@ public interface DataAccess {
     List<GameData> listGames(String authToken) throws DataAccessException;
     GameData getGame(int gameID) throws DataAccessException;
     void saveGame(GameData game) throws DataAccessException;
+    void saveGames(List<GameData> games) throws DataAccessException;
+    /**
+     * Sets aside count consecutive game IDs that no stored game has and no other call
+     * will be given
+     *
+     * @return the first of the IDs
+     */
+    int reserveGameIDs(int count) throws DataAccessException;
+    /**
+     * Sets a player and/or makes a move. A move is checked against the latest saved
+     * game and retried if another write lands first.
+     *
+     * @throws ConcurrentUpdateException if the game kept changing underneath the move
+     */
     void updateGame(ChessGame.TeamColor color, int gameID, String username, ChessMove move) throws DataAccessException;
 
-    void saveUpdatedGame(ChessGame game, int gameID) throws DataAccessException;
+    /**
+     * Replaces the game, but only if it is still at the version it was read at
+     *
+     * @throws ConcurrentUpdateException if it has been changed since
+     */
+    void saveUpdatedGame(ChessGame game, int gameID, int expectedVersion) throws DataAccessException;
+
+    List<ChessMove> getMoves(int gameID) throws DataAccessException;
 
     void removePlayer(int gameID, String username) throws DataAccessException;
 
@@ -1,13 +1,17 @@
 package dataaccess;
 
 import java.sql.*;
+import java.time.Duration;
 import java.util.Properties;
 
 public class DatabaseManager {
     private static String databaseName;
+    private static String configuredDatabaseName;
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static ConnectionPool.Settings poolSettings;
+    private static volatile ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -30,9 +34,31 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * Points this JVM at a different database from the one in db.properties, such as a
+     * scratch database that tools may clear. Must be called before the first connection;
+     * calling it again with the same name does nothing.
+     *
+     * @throws IllegalStateException if connections have already been made, or the name
+     *                               is the configured database's
+     */
+    public static synchronized void useDatabase(String name) {
+        if (name.equals(configuredDatabaseName)) {
+            throw new IllegalStateException(name + " is the server's own database");
+        }
+        if (name.equals(databaseName)) {
+            return;
+        }
+        if (pool != null) {
+            throw new IllegalStateException("Already connected to " + databaseName);
+        }
+        databaseName = name;
+    }
+
+    /**
+     * Borrows a connection to the database from the pool, with the catalog set
+     * based upon the properties specified in db.properties. Connections to the
+     * database should be short-lived, and you must close the connection when you are
+     * done with it, which returns it to the pool.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
@@ -43,15 +69,43 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return pool().borrow();
         } catch (SQLException ex) {
             throw new DataAccessException("failed to get connection", ex);
         }
     }
 
+    /**
+     * @return the connection pool's current counters
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return pool().stats();
+    }
+
+    /*
+     * The pool is created on first use rather than with the class, since the database
+     * may not exist until createDatabase() has run.
+     */
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(DatabaseManager::openConnection, poolSettings);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        conn.setCatalog(databaseName);
+        return conn;
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -67,11 +121,23 @@ public class DatabaseManager {
 
     private static void loadProperties(Properties props) {
         databaseName = props.getProperty("db.name");
+        configuredDatabaseName = databaseName;
         dbUsername = props.getProperty("db.user");
         dbPassword = props.getProperty("db.password");
 
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
-        connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        // Lets the driver send a batch of inserts as one multi-row statement
+        connectionUrl = String.format("jdbc:mysql://%s:%d?rewriteBatchedStatements=true", host, port);
+
+        var defaults = ConnectionPool.Settings.DEFAULT;
+        poolSettings = new ConnectionPool.Settings(
+                Integer.parseInt(props.getProperty("db.pool.minSize", String.valueOf(defaults.minSize()))),
+                Integer.parseInt(props.getProperty("db.pool.maxSize", String.valueOf(defaults.maxSize()))),
+                Duration.ofMillis(Long.parseLong(props.getProperty("db.pool.borrowTimeoutMillis",
+                        String.valueOf(defaults.borrowTimeout().toMillis())))),
+                Duration.ofMillis(Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis",
+                        String.valueOf(defaults.idleTimeout().toMillis())))),
+                defaults.validateAfter());
     }
 }
@@ -2,6 +2,7 @@ package dataaccess;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.InvalidMoveException;
 import datamodel.GameData;
 import datamodel.UserData;
 import datamodel.AuthData;
@@ -9,17 +10,23 @@ import datamodel.AuthData;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MemoryDataAccess implements DataAccess {
     private HashMap<String, UserData> users = new HashMap<>();
     private HashMap<String, AuthData> auths = new HashMap<>();
-    private HashMap<Integer, GameData> games = new HashMap<>();
+    // Each game is replaced as a whole, with its move history, by compare-and-set
+    private ConcurrentHashMap<Integer, StoredGame> games = new ConcurrentHashMap<>();
+    // One past the highest game ID handed out or saved
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
 
     @Override
     public void clear() {
         users.clear();
         auths.clear();
         games.clear();
+        nextGameID.set(1);
     }
 
     @Override
@@ -50,40 +57,111 @@ public class MemoryDataAccess implements DataAccess {
     @Override
     public List<GameData> listGames(String authToken) {
         List<GameData> gameList = new ArrayList<>();
-        for (HashMap.Entry<Integer, GameData> game : games.entrySet()) {
-            gameList.add(game.getValue());
+        for (StoredGame stored : games.values()) {
+            gameList.add(stored.copyOfData());
         }
         return gameList;
     }
 
     @Override
     public GameData getGame(int gameID) {
-        return games.get(gameID);
+        StoredGame stored = games.get(gameID);
+        return stored == null ? null : stored.copyOfData();
     }
 
     @Override
     public void saveGame(GameData game) {
-        games.put(game.gameID(), game);
+        games.put(game.gameID(), new StoredGame(copyOf(game), List.of()));
+        nextGameID.accumulateAndGet(game.gameID() + 1, Math::max);
     }
 
     @Override
-    public void updateGame(ChessGame.TeamColor color, int gameID, String username, ChessMove move) {
-        GameData oldGameVersion = getGame(gameID);
-        if (color == ChessGame.TeamColor.WHITE) {
-            games.put(gameID, new GameData(gameID, username, oldGameVersion.blackUsername(), oldGameVersion.gameName(), getGame(gameID).game()));
+    public void saveGames(List<GameData> gameList) {
+        for (GameData game : gameList) {
+            saveGame(game);
         }
-        if (color == ChessGame.TeamColor.BLACK) {
-            games.put(gameID, new GameData(gameID, oldGameVersion.whiteUsername(), username, oldGameVersion.gameName(), getGame(gameID).game()));
+    }
+
+    @Override
+    public int reserveGameIDs(int count) {
+        return nextGameID.getAndAdd(count);
+    }
+
+    @Override
+    public void updateGame(ChessGame.TeamColor color, int gameID, String username, ChessMove move) throws DataAccessException {
+        for (int attempt = 1; ; attempt++) {
+            StoredGame current = games.get(gameID);
+            if (current == null) {
+                throw new DataAccessException("Game does not exist");
+            }
+            GameData old = current.data();
+            String white = color == ChessGame.TeamColor.WHITE ? username : old.whiteUsername();
+            String black = color == ChessGame.TeamColor.BLACK ? username : old.blackUsername();
+            ChessGame game = old.game();
+            int version = old.version();
+            List<ChessMove> gameMoves = current.moves();
+            if (move != null) {
+                game = game.copy();
+                if (color != null && game.getTeamTurn() != color) {
+                    throw new DataAccessException("Invalid move: not " + color + "'s turn");
+                }
+                try {
+                    game.makeMove(move);
+                } catch (InvalidMoveException e) {
+                    throw new DataAccessException("Invalid move: " + e.getMessage());
+                }
+                version++;
+                gameMoves = new ArrayList<>(gameMoves);
+                gameMoves.add(move);
+            }
+            StoredGame updated = new StoredGame(new GameData(gameID, white, black, old.gameName(), game, version), gameMoves);
+            if (games.replace(gameID, current, updated)) {
+                return;
+            }
+            if (attempt == MAX_UPDATE_ATTEMPTS) {
+                throw new ConcurrentUpdateException("Game " + gameID + " kept changing; the move was not saved");
+            }
         }
     }
 
     @Override
-    public void saveUpdatedGame(ChessGame game, int gameID) throws DataAccessException {
+    public void saveUpdatedGame(ChessGame game, int gameID, int expectedVersion) throws DataAccessException {
+        StoredGame current = games.get(gameID);
+        if (current == null) {
+            throw new DataAccessException("Game does not exist");
+        }
+        GameData old = current.data();
+        StoredGame updated = new StoredGame(new GameData(gameID, old.whiteUsername(), old.blackUsername(), old.gameName(),
+                game.copy(), expectedVersion + 1), current.moves());
+        if (old.version() != expectedVersion || !games.replace(gameID, current, updated)) {
+            throw new ConcurrentUpdateException("Game " + gameID + " was changed by someone else");
+        }
+    }
 
+    @Override
+    public List<ChessMove> getMoves(int gameID) {
+        StoredGame stored = games.get(gameID);
+        return stored == null ? new ArrayList<>() : new ArrayList<>(stored.moves());
     }
 
     @Override
     public void removePlayer(int gameID, String username) throws DataAccessException {
 
     }
+
+    /**
+     * Stored games are never changed in place; saving stores a copy of the caller's game
+     * and readers get their own copy
+     */
+    private record StoredGame(GameData data, List<ChessMove> moves) {
+
+        GameData copyOfData() {
+            return copyOf(data);
+        }
+    }
+
+    private static GameData copyOf(GameData data) {
+        return new GameData(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                data.game().copy(), data.version());
+    }
 }
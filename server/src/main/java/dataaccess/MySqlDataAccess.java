@@ -2,21 +2,35 @@ package dataaccess;
 
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.GameCodec;
 import chess.InvalidMoveException;
+import chess.Move;
 import com.google.gson.Gson;
 import datamodel.AuthData;
 import datamodel.GameData;
 import datamodel.UserData;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Stores everything in MySQL. Moves are appended to the {@code game_moves} table
+ * rather than rewriting the whole game; every {@link #SNAPSHOT_INTERVAL} plies the
+ * full game is also written to {@code games} as a snapshot, and loading a game replays
+ * only the moves made since its last snapshot. Games are stored in the compact
+ * {@link GameCodec} form.
+ */
 public class MySqlDataAccess implements DataAccess {
 
+    static final int SNAPSHOT_INTERVAL = 20;
+
     public MySqlDataAccess() throws DataAccessException {
-        configureDatabase();
+        SchemaMigrations.migrate();
     }
 
     @Override
@@ -24,6 +38,8 @@ public class MySqlDataAccess implements DataAccess {
         executeClearStatement("TRUNCATE TABLE users");
         executeClearStatement("TRUNCATE TABLE auths");
         executeClearStatement("TRUNCATE TABLE games");
+        executeClearStatement("TRUNCATE TABLE game_moves");
+        executeClearStatement("UPDATE game_id_sequence SET nextID=1");
     }
 
     @Override
@@ -110,49 +126,87 @@ public class MySqlDataAccess implements DataAccess {
 
     @Override
     public List<GameData> listGames(String authToken) throws DataAccessException {
-        List<GameData> gameList = new ArrayList<>();
+        Map<Integer, GameData> gamesByID = new LinkedHashMap<>();
         try (Connection conn = DatabaseManager.getConnection()) {
-            var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM games";
-            try (PreparedStatement ps = conn.prepareStatement(statement)) {
-                try (var rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        var gameID = rs.getInt("gameID");
-                        var whiteUsername = rs.getString("whiteUsername");
-                        var blackUsername = rs.getString("blackUsername");
-                        var gameName = rs.getString("gameName");
-                        var serializer = new Gson();
-                        ChessGame game = serializer.fromJson(rs.getString("game"), ChessGame.class);
-                        gameList.add(new GameData(gameID, whiteUsername, blackUsername, gameName, game));
+            // Both reads see the same snapshot, so no move or snapshot written in between
+            // can be replayed against the wrong position
+            int isolation = conn.getTransactionIsolation();
+            conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            conn.setAutoCommit(false);
+            try {
+                var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, game, version FROM games";
+                try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                    try (var rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            var gameID = rs.getInt("gameID");
+                            var whiteUsername = rs.getString("whiteUsername");
+                            var blackUsername = rs.getString("blackUsername");
+                            var gameName = rs.getString("gameName");
+                            ChessGame game = readGame(rs);
+                            gamesByID.put(gameID, new GameData(gameID, whiteUsername, blackUsername, gameName, game, rs.getInt("version")));
+                        }
+                    }
+                }
+                // Every game's moves since its snapshot in one query, rather than one per game
+                var movesStatement = """
+                        SELECT m.gameID, m.move FROM game_moves m JOIN games g ON g.gameID = m.gameID
+                        WHERE m.ply > g.snapshotPly ORDER BY m.gameID, m.ply
+                        """;
+                try (PreparedStatement ps = conn.prepareStatement(movesStatement)) {
+                    try (var rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            int gameID = rs.getInt("gameID");
+                            GameData gameData = gamesByID.get(gameID);
+                            if (gameData == null) {
+                                continue;
+                            }
+                            try {
+                                replay(gameData.game(), rs.getInt("move"));
+                            } catch (DataAccessException e) {
+                                // A game whose log is broken is left out rather than failing the whole list
+                                gamesByID.remove(gameID);
+                            }
+                        }
                     }
                 }
+                conn.commit();
+            } finally {
+                conn.setAutoCommit(true);
+                conn.setTransactionIsolation(isolation);
             }
         } catch (Exception e) {
             throw new DataAccessException(String.format("Unable to read data: %s", e.getMessage()));
         }
-        return gameList;
+        return new ArrayList<>(gamesByID.values());
     }
 
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM games WHERE gameID=?";
+            StoredGame stored = loadGame(conn, gameID);
+            return stored == null ? null : stored.data();
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Unable to read data: %s", e.getMessage()));
+        }
+    }
+
+    @Override
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        List<ChessMove> moves = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            var statement = "SELECT move FROM game_moves WHERE gameID=? ORDER BY ply";
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
                 ps.setInt(1, gameID);
                 try (var rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        var whiteUsername = rs.getString("whiteUsername");
-                        var blackUsername = rs.getString("blackUsername");
-                        var gameName = rs.getString("gameName");
-                        var serializer = new Gson();
-                        ChessGame game = serializer.fromJson(rs.getString("game"), ChessGame.class);
-                        return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+                    while (rs.next()) {
+                        moves.add(Move.toChessMove(rs.getInt("move")));
                     }
                 }
             }
         } catch (Exception e) {
             throw new DataAccessException(String.format("Unable to read data: %s", e.getMessage()));
         }
-        return null;
+        return moves;
     }
 
     @Override
@@ -164,8 +218,7 @@ public class MySqlDataAccess implements DataAccess {
                 ps.setString(2, game.whiteUsername());
                 ps.setString(3, game.blackUsername());
                 ps.setString(4, game.gameName());
-                var serializer = new Gson();
-                ps.setString(5, serializer.toJson(game.game()));
+                ps.setBytes(5, GameCodec.encode(game.game()));
                 ps.executeUpdate();
             }
         } catch (Exception e) {
@@ -173,6 +226,56 @@ public class MySqlDataAccess implements DataAccess {
         }
     }
 
+    @Override
+    public void saveGames(List<GameData> games) throws DataAccessException {
+        var statement = "INSERT INTO games (gameID, whiteUsername, blackUsername, gameName, game) VALUES (?, ?, ?, ?, ?)";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            // One transaction and one round trip per batch instead of per game
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                for (GameData game : games) {
+                    ps.setInt(1, game.gameID());
+                    ps.setString(2, game.whiteUsername());
+                    ps.setString(3, game.blackUsername());
+                    ps.setString(4, game.gameName());
+                    ps.setBytes(5, GameCodec.encode(game.game()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Unable to save games: %s", e.getMessage()));
+        }
+    }
+
+    @Override
+    public int reserveGameIDs(int count) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            // LAST_INSERT_ID(expr) hands the new value back on this connection, so the
+            // reservation is one atomic statement with no lock held after it; games saved
+            // with IDs of their own are skipped over
+            var statement = """
+                    UPDATE game_id_sequence
+                    SET nextID=LAST_INSERT_ID(GREATEST(nextID, (SELECT COALESCE(MAX(gameID), 0) + 1 FROM games)) + ?)
+                    """;
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, count);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = conn.prepareStatement("SELECT LAST_INSERT_ID()");
+                 var rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1) - count;
+            }
+        } catch (Exception e) {
+            throw new DataAccessException(String.format("Unable to reserve game IDs: %s", e.getMessage()));
+        }
+    }
+
     @Override
     public void updateGame(ChessGame.TeamColor color, int gameID, String username, ChessMove move) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
@@ -184,36 +287,102 @@ public class MySqlDataAccess implements DataAccess {
                     addUsername(conn, "UPDATE games SET blackUsername=? WHERE gameID=?", username, gameID);
                 }
             }
-            ChessGame currentGame = getGame(gameID).game();
             if (move != null) {
-                try {
-                    currentGame.makeMove(move);
-                } catch (InvalidMoveException e) {
-                    throw new DataAccessException("Invalid move: " + e.getMessage());
+                for (int attempt = 1; ; attempt++) {
+                    if (tryMove(conn, color, gameID, move)) {
+                        return;
+                    }
+                    if (attempt == MAX_UPDATE_ATTEMPTS) {
+                        throw new ConcurrentUpdateException("Game " + gameID + " kept changing; the move was not saved");
+                    }
                 }
             }
-            var updateGameStatement = "UPDATE games SET game=? WHERE gameID=?";
-            try (PreparedStatement ps = conn.prepareStatement(updateGameStatement)) {
-                var serializer = new Gson();
-                ps.setString(1, serializer.toJson(currentGame));
-                ps.setInt(2, gameID);
-                ps.executeUpdate();
-            }
+        } catch (ConcurrentUpdateException e) {
+            throw e;
         } catch (Exception e) {
             throw new DataAccessException(String.format("Unable to update game: %s", e.getMessage()));
         }
     }
 
+    /**
+     * Makes the move against the game as last saved. The game is read without locking it;
+     * the version bump only succeeds if the row still has the version that was read, and
+     * the move is logged in the same transaction.
+     *
+     * @return false if another write got there first
+     */
+    private boolean tryMove(Connection conn, ChessGame.TeamColor color, int gameID, ChessMove move)
+            throws SQLException, DataAccessException {
+        StoredGame stored = loadGame(conn, gameID);
+        if (stored == null) {
+            throw new DataAccessException("Game does not exist");
+        }
+        ChessGame currentGame = stored.data().game();
+        if (color != null && currentGame.getTeamTurn() != color) {
+            throw new DataAccessException("Invalid move: not " + color + "'s turn");
+        }
+        int packedMove = Move.of(move, currentGame.getBoard());
+        try {
+            currentGame.makeMove(move);
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Invalid move: " + e.getMessage());
+        }
+        int ply = stored.ply() + 1;
+        conn.setAutoCommit(false);
+        try {
+            boolean snapshot = ply % SNAPSHOT_INTERVAL == 0;
+            var versionStatement = snapshot
+                    ? "UPDATE games SET version=version+1, game=?, snapshotPly=? WHERE gameID=? AND version=?"
+                    : "UPDATE games SET version=version+1 WHERE gameID=? AND version=?";
+            try (PreparedStatement ps = conn.prepareStatement(versionStatement)) {
+                int index = 1;
+                if (snapshot) {
+                    ps.setBytes(index++, GameCodec.encode(currentGame));
+                    ps.setInt(index++, ply);
+                }
+                ps.setInt(index++, gameID);
+                ps.setInt(index, stored.data().version());
+                if (ps.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+            var insertMoveStatement = "INSERT INTO game_moves (gameID, ply, move) VALUES (?, ?, ?)";
+            try (PreparedStatement ps = conn.prepareStatement(insertMoveStatement)) {
+                ps.setInt(1, gameID);
+                ps.setInt(2, ply);
+                ps.setInt(3, packedMove);
+                ps.executeUpdate();
+            }
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
     @Override
-    public void saveUpdatedGame(ChessGame game, int gameID) throws DataAccessException {
+    public void saveUpdatedGame(ChessGame game, int gameID, int expectedVersion) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            String updateGameStatement = "UPDATE games SET game=? WHERE gameID=?";
+            // The game already includes every logged move, so it becomes the snapshot at the latest ply
+            String updateGameStatement = """
+                    UPDATE games SET game=?, snapshotPly=(SELECT COALESCE(MAX(ply), 0) FROM game_moves WHERE gameID=?),
+                    version=version+1 WHERE gameID=? AND version=?
+                    """;
             try (PreparedStatement ps = conn.prepareStatement(updateGameStatement)) {
-                var serializer = new Gson();
-                ps.setString(1, serializer.toJson(game));
+                ps.setBytes(1, GameCodec.encode(game));
                 ps.setInt(2, gameID);
-                ps.executeUpdate();
+                ps.setInt(3, gameID);
+                ps.setInt(4, expectedVersion);
+                if (ps.executeUpdate() == 0) {
+                    throw new ConcurrentUpdateException("Game " + gameID + " was changed by someone else");
+                }
             }
+        } catch (ConcurrentUpdateException e) {
+            throw e;
         } catch (Exception e) {
             throw new DataAccessException("Unable to update game: " + e.getMessage());
         }
@@ -248,6 +417,67 @@ public class MySqlDataAccess implements DataAccess {
         }
     }
 
+    /**
+     * A game as stored, with how many plies have been played in it
+     */
+    private record StoredGame(GameData data, int ply) {
+    }
+
+    /**
+     * Reads a game's latest snapshot and replays the moves logged after it
+     */
+    private StoredGame loadGame(Connection conn, int gameID) throws SQLException, DataAccessException {
+        GameData gameData;
+        int ply;
+        var statement = "SELECT whiteUsername, blackUsername, gameName, game, snapshotPly, version FROM games WHERE gameID=?";
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (var rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                var whiteUsername = rs.getString("whiteUsername");
+                var blackUsername = rs.getString("blackUsername");
+                var gameName = rs.getString("gameName");
+                ChessGame game = readGame(rs);
+                gameData = new GameData(gameID, whiteUsername, blackUsername, gameName, game, rs.getInt("version"));
+                ply = rs.getInt("snapshotPly");
+            }
+        }
+        var movesStatement = "SELECT move FROM game_moves WHERE gameID=? AND ply>? ORDER BY ply";
+        try (PreparedStatement ps = conn.prepareStatement(movesStatement)) {
+            ps.setInt(1, gameID);
+            ps.setInt(2, ply);
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    replay(gameData.game(), rs.getInt("move"));
+                    ply++;
+                }
+            }
+        }
+        return new StoredGame(gameData, ply);
+    }
+
+    /**
+     * Reads the game column, which holds {@link GameCodec} bytes or, in rows not written
+     * since the column became binary, Gson JSON
+     */
+    private static ChessGame readGame(ResultSet rs) throws SQLException {
+        byte[] bytes = rs.getBytes("game");
+        if (bytes.length > 0 && bytes[0] == '{') {
+            return new Gson().fromJson(new String(bytes, StandardCharsets.UTF_8), ChessGame.class);
+        }
+        return GameCodec.decode(bytes);
+    }
+
+    private static void replay(ChessGame game, int move) throws DataAccessException {
+        try {
+            game.makeMove(Move.toChessMove(move));
+        } catch (InvalidMoveException e) {
+            throw new DataAccessException("Logged move does not replay: " + e.getMessage());
+        }
+    }
+
     private void addUsername(Connection conn, String statement, String username, int gameID) throws DataAccessException {
         try (PreparedStatement ps = conn.prepareStatement(statement)) {
             ps.setString(1, username);
@@ -267,47 +497,4 @@ public class MySqlDataAccess implements DataAccess {
             throw new DataAccessException(String.format("Unable to clear data: %s", e.getMessage()));
         }
     }
-
-    private final String[] createStatements = {
-            """
-            CREATE TABLE IF NOT EXISTS  users (
-              `username` varchar(50) NOT NULL,
-              `password` char(100) NOT NULL,
-              `email` varchar(50) NOT NULL,
-              PRIMARY KEY (`username`)
-            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
-            """,
-            
-            """
-            CREATE TABLE IF NOT EXISTS  auths (
-              `username` varchar(50) NOT NULL,
-              `authToken` varchar(50) NOT NULL,
-              PRIMARY KEY (`authToken`)
-            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
-            """,
-            
-            """
-            CREATE TABLE IF NOT EXISTS  games (
-              `gameID` int NOT NULL,
-              `whiteUsername` varchar(50),
-              `blackUsername` varchar(50),
-              `gameName` varchar(50) NOT NULL,
-              `game` varchar(2000) NOT NULL,
-              PRIMARY KEY (`gameID`)
-            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
-            """
-    };
-
-    private void configureDatabase() throws DataAccessException {
-        DatabaseManager.createDatabase();
-        try (Connection conn = DatabaseManager.getConnection()) {
-            for (String statement : createStatements) {
-                try (var preparedStatement = conn.prepareStatement(statement)) {
-                    preparedStatement.executeUpdate();
-                }
-            }
-        } catch (SQLException ex) {
-            throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()));
-        }
-    }
 }
@@ -0,0 +1,158 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Brings the database schema up to date, once per JVM.
+ * <p>
+ * Each migration has a version number and is applied at most once per database; the
+ * versions already applied are recorded in the {@code schema_version} table. New
+ * schema changes go at the end of {@link #MIGRATIONS} with the next version number,
+ * and a migration is never edited once it has shipped. A MySQL named lock keeps two
+ * servers starting at once from applying the same migration twice.
+ * <p>
+ * MySQL commits DDL as it runs, so a migration that fails halfway is not rolled back
+ * and has to be finished by hand before the server will start.
+ */
+final class SchemaMigrations {
+
+    record Migration(int version, String description, String... statements) {
+    }
+
+    static final List<Migration> MIGRATIONS = List.of(
+            // Databases created before migrations existed already have these tables
+            new Migration(1, "Create users, auths and games tables",
+                    """
+                    CREATE TABLE IF NOT EXISTS  users (
+                      `username` varchar(50) NOT NULL,
+                      `password` char(100) NOT NULL,
+                      `email` varchar(50) NOT NULL,
+                      PRIMARY KEY (`username`)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS  auths (
+                      `username` varchar(50) NOT NULL,
+                      `authToken` varchar(50) NOT NULL,
+                      PRIMARY KEY (`authToken`)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS  games (
+                      `gameID` int NOT NULL,
+                      `whiteUsername` varchar(50),
+                      `blackUsername` varchar(50),
+                      `gameName` varchar(50) NOT NULL,
+                      `game` varchar(2000) NOT NULL,
+                      PRIMARY KEY (`gameID`)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """),
+            new Migration(2, "Log moves in game_moves and snapshot games every few plies",
+                    """
+                    CREATE TABLE IF NOT EXISTS  game_moves (
+                      `gameID` int NOT NULL,
+                      `ply` int NOT NULL,
+                      `move` smallint unsigned NOT NULL,
+                      `playedAt` timestamp(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+                      PRIMARY KEY (`gameID`, `ply`)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    // Existing games are their own snapshot, with nothing logged after it
+                    "ALTER TABLE games ADD COLUMN `snapshotPly` int NOT NULL DEFAULT 0"),
+            // Existing JSON keeps its bytes and is read as JSON until the game is next saved
+            new Migration(3, "Store games in binary",
+                    "ALTER TABLE games MODIFY COLUMN `game` varbinary(2000) NOT NULL"),
+            new Migration(4, "Version games for compare-and-set updates",
+                    "ALTER TABLE games ADD COLUMN `version` int NOT NULL DEFAULT 0"),
+            new Migration(5, "Hand out game IDs from a sequence",
+                    """
+                    CREATE TABLE IF NOT EXISTS  game_id_sequence (
+                      `nextID` int NOT NULL
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    "INSERT INTO game_id_sequence (nextID) SELECT COALESCE(MAX(gameID), 0) + 1 FROM games")
+    );
+
+    private static final String LOCK_NAME = "chess_schema_migrations";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    private static boolean migrated;
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Creates the database if needed and applies any migrations it has not had yet.
+     * Only the first call in a JVM touches the database.
+     */
+    static synchronized void migrate() throws DataAccessException {
+        if (migrated) {
+            return;
+        }
+        DatabaseManager.createDatabase();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            execute(conn, """
+                    CREATE TABLE IF NOT EXISTS  schema_version (
+                      `version` int NOT NULL,
+                      `description` varchar(200) NOT NULL,
+                      `appliedAt` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                      PRIMARY KEY (`version`)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """);
+            lock(conn);
+            try {
+                int current = currentVersion(conn);
+                for (Migration migration : MIGRATIONS) {
+                    if (migration.version() > current) {
+                        apply(conn, migration);
+                    }
+                }
+            } finally {
+                execute(conn, "DO RELEASE_LOCK('" + LOCK_NAME + "')");
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()), ex);
+        }
+        migrated = true;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        for (String statement : migration.statements()) {
+            execute(conn, statement);
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            ps.setInt(1, migration.version());
+            ps.setString(2, migration.description());
+            ps.executeUpdate();
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+             var rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void lock(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (var rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for another server to finish migrating the schema");
+                }
+            }
+        }
+    }
+
+    private static void execute(Connection conn, String statement) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.executeUpdate();
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class Server {
         }
         this.userService = new UserService(dataAccess);
         this.gameService = new GameService(dataAccess);
-        webSocketHandler = new WebSocketHandler();
+        webSocketHandler = new WebSocketHandler(dataAccess);
 
         server.delete("db", ctx -> {
             try {
@@ -5,9 +5,9 @@ import chess.ChessMove;
 import chess.ChessPosition;
 import chess.InvalidMoveException;
 import com.google.gson.Gson;
+import dataaccess.ConcurrentUpdateException;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
-import dataaccess.MySqlDataAccess;
 import datamodel.AuthData;
 import datamodel.GameData;
 import datamodel.UserData;
@@ -26,6 +26,11 @@ import java.io.IOException;
 public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsCloseHandler {
 
     private final ConnectionManager connections = new ConnectionManager();
+    private final DataAccess dataAccess;
+
+    public WebSocketHandler(DataAccess dataAccess) {
+        this.dataAccess = dataAccess;
+    }
 
     @Override
     public void handleConnect(WsConnectContext ctx) {
@@ -67,7 +72,6 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     }
 
     private void connect(UserGameCommand cmd, Session session) throws IOException, DataAccessException {
-        DataAccess dataAccess = new MySqlDataAccess();
         AuthData authData = dataAccess.getAuth(cmd.getAuthToken());
         if (authData == null) {
             session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: invalid authToken")));
@@ -106,7 +110,6 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 
         connections.remove(session);
 
-        DataAccess dataAccess = new MySqlDataAccess();
         GameData gameData = dataAccess.getGame(info.gameID);
 
         if (gameData != null) {
@@ -125,27 +128,37 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         if (info == null) {
             return;
         }
-        DataAccess dataAccess = new MySqlDataAccess();
-        GameData gameData = dataAccess.getGame(info.gameID);
-        ChessGame game = gameData.game();
+        // Re-read and re-check the game whenever a move lands between reading and saving it
+        GameData gameData;
+        for (int attempt = 1; ; attempt++) {
+            gameData = dataAccess.getGame(info.gameID);
+            ChessGame game = gameData.game();
+
+            if (game.getGameState() == ChessGame.GameState.RESIGNED
+                    || game.getGameState() == ChessGame.GameState.CHECKMATE
+                    || game.getGameState() == ChessGame.GameState.STALEMATE) {
+                session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Cannot resign, game is already over.")));
+                return;
+            }
 
-        if (game.getGameState() == ChessGame.GameState.RESIGNED
-                || game.getGameState() == ChessGame.GameState.CHECKMATE
-                || game.getGameState() == ChessGame.GameState.STALEMATE) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Cannot resign, game is already over.")));
-            return;
-        }
+            boolean isPlayer = info.username.equals(gameData.whiteUsername()) || info.username.equals(gameData.blackUsername());
+            if (!isPlayer) {
+                session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Only players can resign")));
+                return;
+            }
 
-        boolean isPlayer = info.username.equals(gameData.whiteUsername()) || info.username.equals(gameData.blackUsername());
-        if (!isPlayer) {
-            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Only players can resign")));
-            return;
+            game.setGameState(ChessGame.GameState.RESIGNED);
+            try {
+                dataAccess.saveUpdatedGame(game, gameData.gameID(), gameData.version());
+                break;
+            } catch (ConcurrentUpdateException e) {
+                if (attempt == DataAccess.MAX_UPDATE_ATTEMPTS) {
+                    session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: the game kept changing, please try to resign again")));
+                    return;
+                }
+            }
         }
 
-        game.setGameState(ChessGame.GameState.RESIGNED);
-        dataAccess.saveUpdatedGame(game, gameData.gameID());
-
-
         connections.broadcastAll(new NotificationMessage(info.username + " has resigned and forfeited the game. Game Over."), gameData.gameID());
     }
 
@@ -155,8 +168,6 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
             return;
         }
 
-        DataAccess dataAccess = new MySqlDataAccess();
-
         AuthData authData = dataAccess.getAuth(cmd.getAuthToken());
         if (authData == null) {
             session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: invalid authToken")));
@@ -197,6 +208,9 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 
         try {
             dataAccess.updateGame(playerColor, info.gameID, info.username, move);
+        } catch (ConcurrentUpdateException e) {
+            session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Error: the game changed before your move was saved, please try again")));
+            return;
         } catch (DataAccessException e) {
             try {
                 session.getRemote().sendString(new Gson().toJson(new ErrorMessage("Invalid move")));
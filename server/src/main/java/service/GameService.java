@@ -17,7 +17,6 @@ import java.util.Objects;
 
 public class GameService {
     private DataAccess dataAccess;
-    private int gameNumber = 1;
 
     public GameService(DataAccess dataAccess) {
         this.dataAccess = dataAccess;
@@ -33,7 +32,6 @@ public class GameService {
     }
 
     public GameData createGame(String authToken, GameData game) throws DataAccessException {
-        gameNumber = listGames(authToken).size() + 1;
         if (dataAccess.getAuth(authToken) == null) {
             throw new UnauthorizedResponse();
         }
@@ -42,8 +40,7 @@ public class GameService {
         }
         GameData gameData;
         if (game.gameID() == 0) {
-            gameData = new GameData(gameNumber, game.whiteUsername(), game.blackUsername(), game.gameName(), new ChessGame());
-            gameNumber++;
+            gameData = new GameData(dataAccess.reserveGameIDs(1), game.whiteUsername(), game.blackUsername(), game.gameName(), new ChessGame());
         } else {
             gameData = new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), new ChessGame());
         }
@@ -0,0 +1,155 @@
+package service;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import dataaccess.MySqlDataAccess;
+import datamodel.GameData;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads archives of finished games from PGN into the database.
+ * <p>
+ * Games are streamed from the file in batches. While one batch is replayed and checked
+ * across all cores, the next is read, and each checked batch is saved with a single
+ * {@link DataAccess#saveGames} call, so memory stays at about two batches however big
+ * the archive is. A game is skipped if it has no result or any of its moves cannot be
+ * played under this project's rules, such as castling or en passant.
+ * <p>
+ * Archive players do not have accounts here, so the players' names go in the game
+ * name and both player slots are left empty. A game that did not end on the board is
+ * marked {@link ChessGame.GameState#RESIGNED} so no more moves can be made in it.
+ * <p>
+ * Usage: {@code PgnImportService input.pgn...}
+ */
+public class PgnImportService {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // The games table's gameName column is varchar(50)
+    private static final int MAX_NAME_LENGTH = 50;
+
+    private final DataAccess dataAccess;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    public record ImportResult(int imported, int skipped) {
+    }
+
+    public PgnImportService(DataAccess dataAccess) {
+        this(dataAccess, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    public PgnImportService(DataAccess dataAccess, ForkJoinPool pool, int batchSize) {
+        this.dataAccess = dataAccess;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports every playable finished game, each batch numbered from a range of game IDs
+     * reserved for it
+     */
+    public ImportResult importPgn(Reader pgn) throws IOException, DataAccessException {
+        PgnReader reader = new PgnReader(pgn);
+        int read = 0;
+        int imported = 0;
+        ForkJoinTask<List<ChessGame>> checking = null;
+        List<PgnGame> checkingBatch = null;
+        while (true) {
+            List<PgnGame> batch = readBatch(reader);
+            read += batch.size();
+            if (checking != null) {
+                List<ChessGame> replayed = checking.join();
+                int playable = (int) replayed.stream().filter(Objects::nonNull).count();
+                if (playable > 0) {
+                    int nextGameID = dataAccess.reserveGameIDs(playable);
+                    List<GameData> rows = new ArrayList<>(playable);
+                    for (int i = 0; i < replayed.size(); i++) {
+                        if (replayed.get(i) != null) {
+                            rows.add(new GameData(nextGameID++, null, null, gameName(checkingBatch.get(i)), replayed.get(i)));
+                        }
+                    }
+                    dataAccess.saveGames(rows);
+                    imported += rows.size();
+                }
+            }
+            if (batch.isEmpty()) {
+                return new ImportResult(imported, read - imported);
+            }
+            List<PgnGame> games = batch;
+            checking = pool.submit(() -> games.parallelStream().map(PgnImportService::replay).toList());
+            checkingBatch = batch;
+        }
+    }
+
+    /**
+     * Imports every game in a PGN file
+     */
+    public ImportResult importPgn(Path file) throws IOException, DataAccessException {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return importPgn(reader);
+        }
+    }
+
+    private List<PgnGame> readBatch(PgnReader reader) throws IOException {
+        List<PgnGame> batch = new ArrayList<>(batchSize);
+        PgnGame game;
+        while (batch.size() < batchSize && (game = reader.next()) != null) {
+            batch.add(game);
+        }
+        return batch;
+    }
+
+    /**
+     * @return the finished game, or null if it should be skipped
+     */
+    private static ChessGame replay(PgnGame pgn) {
+        if (!pgn.isFinished()) {
+            return null;
+        }
+        ChessGame game;
+        try {
+            game = pgn.replay();
+        } catch (InvalidMoveException e) {
+            return null;
+        }
+        if (game.getGameState() != ChessGame.GameState.CHECKMATE && game.getGameState() != ChessGame.GameState.STALEMATE) {
+            game.setGameState(ChessGame.GameState.RESIGNED);
+        }
+        return game;
+    }
+
+    private static String gameName(PgnGame pgn) {
+        String white = pgn.tags().getOrDefault("White", "?");
+        String black = pgn.tags().getOrDefault("Black", "?");
+        String name = white + " vs " + black;
+        return name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: PgnImportService input.pgn...");
+            System.exit(2);
+        }
+        PgnImportService importer = new PgnImportService(new MySqlDataAccess());
+        for (String arg : args) {
+            long start = System.nanoTime();
+            ImportResult result = importer.importPgn(Path.of(arg));
+            System.out.printf("%s: imported %,d games, skipped %,d in %d ms%n",
+                    arg, result.imported(), result.skipped(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void reusesReturnedConnections() throws SQLException {
+        pool = new ConnectionPool(this::open, settings(0, 2, Duration.ofMinutes(1)));
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+            conn.setAutoCommit(false);
+        }
+        try (Connection conn = pool.borrow()) {
+            assertTrue(conn.getAutoCommit());
+        }
+        assertEquals(1, opened.size());
+        assertEquals(1, opened.get(0).rollbacks);
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(1, stats.open());
+        assertEquals(1, stats.idle());
+        assertEquals(2, stats.borrowed());
+    }
+
+    @Test
+    void closedHandleCannotBeUsedAgain() throws SQLException {
+        pool = new ConnectionPool(this::open, settings(0, 1, Duration.ofMinutes(1)));
+        Connection conn = pool.borrow();
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::getAutoCommit);
+        assertEquals(1, pool.stats().idle());
+    }
+
+    @Test
+    void borrowTimesOutWhenExhausted() throws SQLException {
+        pool = new ConnectionPool(this::open, new ConnectionPool.Settings(0, 1, Duration.ofMillis(50), Duration.ofMinutes(1), Duration.ZERO));
+        try (Connection ignored = pool.borrow()) {
+            assertThrows(SQLTransientConnectionException.class, pool::borrow);
+        }
+        assertEquals(1, pool.stats().timeouts());
+        try (Connection conn = pool.borrow()) {
+            assertNotNull(conn);
+        }
+    }
+
+    @Test
+    void replacesBrokenIdleConnections() throws SQLException {
+        pool = new ConnectionPool(this::open, settings(0, 2, Duration.ofMinutes(1)));
+        pool.borrow().close();
+        opened.get(0).valid = false;
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed);
+        assertEquals(1, pool.stats().failedValidations());
+        assertEquals(1, pool.stats().open());
+    }
+
+    @Test
+    void evictsIdleConnectionsDownToMinimum() throws Exception {
+        pool = new ConnectionPool(this::open, settings(1, 3, Duration.ofMillis(40)));
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+        Connection third = pool.borrow();
+        first.close();
+        second.close();
+        third.close();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (pool.stats().open() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, pool.stats().open());
+        assertEquals(2, opened.stream().filter(conn -> conn.closed).count());
+    }
+
+    @Test
+    void connectionsGivenBackWhileClosingAreClosed() throws Exception {
+        int connections = 4;
+        ExecutorService returners = Executors.newFixedThreadPool(connections);
+        try {
+            // The race is between two lines, so give it many chances to happen
+            for (int round = 0; round < 1000; round++) {
+                opened.clear();
+                pool = new ConnectionPool(this::open, settings(0, connections, Duration.ofMinutes(1)));
+                List<Connection> borrowed = new ArrayList<>();
+                for (int i = 0; i < connections; i++) {
+                    borrowed.add(pool.borrow());
+                }
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> returns = new ArrayList<>();
+                for (Connection conn : borrowed) {
+                    returns.add(returners.submit(() -> {
+                        start.await();
+                        conn.close();
+                        return null;
+                    }));
+                }
+                start.countDown();
+                pool.close();
+                for (Future<?> giveBack : returns) {
+                    giveBack.get();
+                }
+                assertEquals(0, pool.stats().open(), "round " + round);
+                assertTrue(opened.stream().allMatch(conn -> conn.closed), "round " + round);
+            }
+        } finally {
+            returners.shutdown();
+        }
+    }
+
+    private static ConnectionPool.Settings settings(int minSize, int maxSize, Duration idleTimeout) {
+        // Validate on every borrow so the tests do not depend on timing
+        return new ConnectionPool.Settings(minSize, maxSize, Duration.ofSeconds(1), idleTimeout, Duration.ZERO);
+    }
+
+    private synchronized Connection open() {
+        FakeConnection fake = new FakeConnection();
+        opened.add(fake);
+        return fake.proxy();
+    }
+
+    /**
+     * Just enough of a connection for the pool: validity, auto-commit and closing
+     */
+    private static class FakeConnection {
+        volatile boolean valid = true;
+        volatile boolean closed;
+        boolean autoCommit = true;
+        int rollbacks;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "isValid" -> valid && !closed;
+                        case "isClosed" -> closed;
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks++;
+                            yield null;
+                        }
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+}
@@ -10,6 +10,12 @@ import datamodel.UserData;
 import org.junit.jupiter.api.*;
 
 import javax.xml.crypto.Data;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -226,4 +232,125 @@ class DataAccessTest {
         assertNull(da.getGame(111).game().getBoard().getPiece(new ChessPosition(2, 1)));
         assertEquals(ChessGame.TeamColor.BLACK, da.getGame(111).game().getTeamTurn());
     }
-}
\ No newline at end of file
+
+    @Test
+    void moveLogMemory() throws DataAccessException {
+        DataAccess da = new MemoryDataAccess();
+        assertMovesAreLogged(da);
+    }
+
+    @Test
+    void moveLogSQL() throws DataAccessException {
+        DataAccess da = new MySqlDataAccess();
+        da.clear();
+        assertMovesAreLogged(da);
+    }
+
+    // Knights out and back, long enough to pass a snapshot
+    private void assertMovesAreLogged(DataAccess da) throws DataAccessException {
+        da.saveGame(new GameData(444, "white", "black", "logged", new ChessGame()));
+        ChessMove[] cycle = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+                new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null),
+        };
+        int plies = 25;
+        for (int ply = 0; ply < plies; ply++) {
+            da.updateGame(null, 444, null, cycle[ply % cycle.length]);
+        }
+        assertEquals(plies, da.getMoves(444).size());
+        assertEquals(cycle[1], da.getMoves(444).get(1));
+        ChessGame game = da.getGame(444).game();
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertNotNull(game.getBoard().getPiece(new ChessPosition(3, 6)));
+        assertNull(game.getBoard().getPiece(new ChessPosition(1, 7)));
+    }
+
+    @Test
+    void staleSaveMemory() throws DataAccessException {
+        DataAccess da = new MemoryDataAccess();
+        assertStaleSaveIsRejected(da);
+    }
+
+    @Test
+    void staleSaveSQL() throws DataAccessException {
+        DataAccess da = new MySqlDataAccess();
+        da.clear();
+        assertStaleSaveIsRejected(da);
+    }
+
+    @Test
+    void racingMovesMemory() throws Exception {
+        DataAccess da = new MemoryDataAccess();
+        assertOnlyOneRacingMoveWins(da);
+    }
+
+    @Test
+    void racingMovesSQL() throws Exception {
+        DataAccess da = new MySqlDataAccess();
+        da.clear();
+        assertOnlyOneRacingMoveWins(da);
+    }
+
+    @Test
+    void savedGameIsCopiedMemory() throws DataAccessException {
+        DataAccess da = new MemoryDataAccess();
+        GameData saved = new GameData(777, "white", "black", "copied", new ChessGame());
+        da.saveGame(saved);
+        saved.game().setGameState(ChessGame.GameState.RESIGNED);
+        assertEquals(ChessGame.GameState.NORMAL, da.getGame(777).game().getGameState());
+        da.updateGame(ChessGame.TeamColor.WHITE, 777, "white", new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null));
+        assertEquals(1, da.getMoves(777).size());
+    }
+
+    // A resign read before a move was made must not undo the move
+    private void assertStaleSaveIsRejected(DataAccess da) throws DataAccessException {
+        da.saveGame(new GameData(555, "white", "black", "versioned", new ChessGame()));
+        GameData read = da.getGame(555);
+        assertEquals(0, read.version());
+        da.updateGame(ChessGame.TeamColor.WHITE, 555, "white", new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null));
+        assertEquals(1, da.getGame(555).version());
+        read.game().setGameState(ChessGame.GameState.RESIGNED);
+        assertThrows(ConcurrentUpdateException.class, () -> da.saveUpdatedGame(read.game(), 555, read.version()));
+        assertNull(da.getGame(555).game().getBoard().getPiece(new ChessPosition(2, 1)));
+        assertNotEquals(ChessGame.GameState.RESIGNED, da.getGame(555).game().getGameState());
+
+        GameData fresh = da.getGame(555);
+        fresh.game().setGameState(ChessGame.GameState.RESIGNED);
+        da.saveUpdatedGame(fresh.game(), 555, fresh.version());
+        assertEquals(ChessGame.GameState.RESIGNED, da.getGame(555).game().getGameState());
+        assertEquals(2, da.getGame(555).version());
+    }
+
+    // White sends the same opening move from several threads; only one may be played
+    private void assertOnlyOneRacingMoveWins(DataAccess da) throws Exception {
+        da.saveGame(new GameData(666, "white", "black", "raced", new ChessGame()));
+        ChessMove move = new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    da.updateGame(ChessGame.TeamColor.WHITE, 666, "white", move);
+                    return true;
+                } catch (DataAccessException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int played = 0;
+        for (Future<Boolean> result : results) {
+            played += result.get() ? 1 : 0;
+        }
+        pool.shutdown();
+        assertEquals(1, played);
+        assertEquals(1, da.getMoves(666).size());
+        assertEquals(1, da.getGame(666).version());
+        assertEquals(ChessGame.TeamColor.BLACK, da.getGame(666).game().getTeamTurn());
+    }
+}
@@ -0,0 +1,76 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.MemoryDataAccess;
+import datamodel.GameData;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnImportServiceTest {
+
+    private static final String PGN = """
+            [White "Alice"]
+            [Black "Bob"]
+            1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0
+
+            [White "Carol"]
+            [Black "Dan"]
+            1. d4 d5 2. c4 e6 1/2-1/2
+
+            [White "Erin"]
+            [Black "Frank"]
+            1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O Nf6 0-1
+
+            [White "Grace"]
+            [Black "Heidi"]
+            1. c4 e5 *
+
+            [White "Ivan"]
+            [Black "Judy"]
+            1. Nf3 d5 0-1
+            """;
+
+    @Test
+    void importsFinishedPlayableGames() throws Exception {
+        MemoryDataAccess da = new MemoryDataAccess();
+        da.saveGame(new GameData(7, "white", null, "existing", new ChessGame()));
+        // A batch size of 2 makes the import overlap reading and checking
+        PgnImportService importer = new PgnImportService(da, ForkJoinPool.commonPool(), 2);
+
+        PgnImportService.ImportResult result = importer.importPgn(new StringReader(PGN));
+
+        assertEquals(new PgnImportService.ImportResult(3, 2), result);
+        assertEquals(4, da.listGames(null).size());
+        GameData mate = da.getGame(8);
+        assertEquals("Alice vs Bob", mate.gameName());
+        assertNull(mate.whiteUsername());
+        assertEquals(ChessGame.GameState.CHECKMATE, mate.game().getGameState());
+        assertEquals("Carol vs Dan", da.getGame(9).gameName());
+        assertEquals(ChessGame.GameState.RESIGNED, da.getGame(9).game().getGameState());
+        assertEquals("Ivan vs Judy", da.getGame(10).gameName());
+    }
+
+    @Test
+    void importSkipsReservedGameIDs() throws Exception {
+        MemoryDataAccess da = new MemoryDataAccess();
+        // As if games were being created while the archive was read
+        int created = da.reserveGameIDs(2);
+        new PgnImportService(da).importPgn(new StringReader(PGN));
+        assertEquals(1, created);
+        assertNull(da.getGame(1));
+        assertNull(da.getGame(2));
+        assertEquals("Alice vs Bob", da.getGame(3).gameName());
+        assertEquals(6, da.reserveGameIDs(1));
+    }
+
+    @Test
+    void emptyArchiveImportsNothing() throws Exception {
+        MemoryDataAccess da = new MemoryDataAccess();
+        assertEquals(new PgnImportService.ImportResult(0, 0), new PgnImportService(da).importPgn(new StringReader("")));
+        assertTrue(da.listGames(null).isEmpty());
+    }
+}
@@ -0,0 +1,243 @@
+package chess;
+
+/**
+ * Precomputed attack sets for every piece type, built once when the class loads.
+ * <p>
+ * Knights, kings and pawns use a plain table per square. Bishops and rooks use
+ * magic bitboards: the blockers on a slider's rays are multiplied by a per-square
+ * magic number, and the top bits of the product index straight into a table of
+ * attack sets, so a slider's moves cost one multiply and one array read.
+ * <p>
+ * Squares are numbered as in {@link ChessBoard}: bit 0 is row 1 column 1.
+ */
+public final class AttackTables {
+
+    private static final int[][] KNIGHT_DIRECTIONS = {{-1, 2}, {-1, -2}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {2, 1}, {2, -1}};
+    private static final int[][] KING_DIRECTIONS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1}};
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+            0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+            0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+            0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+            0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+            0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+            0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+            0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+            0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+            0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+            0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+            0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+            0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+            0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+            0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+            0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_DIRECTIONS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_DIRECTIONS);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+            initSlider(square, ROOK_DIRECTIONS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_ATTACKS);
+            initSlider(square, BISHOP_DIRECTIONS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                long fromBit = 1L << from;
+                long toBit = 1L << to;
+                if ((rookAttacks(from, 0) & toBit) != 0) {
+                    BETWEEN[from][to] = rookAttacks(from, toBit) & rookAttacks(to, fromBit);
+                    LINE[from][to] = (rookAttacks(from, 0) & rookAttacks(to, 0)) | fromBit | toBit;
+                } else if ((bishopAttacks(from, 0) & toBit) != 0) {
+                    BETWEEN[from][to] = bishopAttacks(from, toBit) & bishopAttacks(to, fromBit);
+                    LINE[from][to] = (bishopAttacks(from, 0) & bishopAttacks(to, 0)) | fromBit | toBit;
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color on this square can capture on
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * @return the squares a pawn can reach: diagonal captures of enemy pieces, one
+     * step forward onto an empty square, and two from its starting row if both are empty
+     */
+    public static long pawnTargets(ChessGame.TeamColor color, int square, long occupied, long enemies) {
+        long empty = ~occupied;
+        long targets = pawnAttacks(color, square) & enemies;
+        if (color == ChessGame.TeamColor.WHITE) {
+            long singlePush = (1L << square << 8) & empty;
+            targets |= singlePush;
+            if ((square >>> 3) == 1) {
+                targets |= (singlePush << 8) & empty;
+            }
+        } else {
+            long singlePush = (1L << square >>> 8) & empty;
+            targets |= singlePush;
+            if ((square >>> 3) == 6) {
+                targets |= (singlePush >>> 8) & empty;
+            }
+        }
+        return targets;
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared row, column or
+     * diagonal, or an empty bitboard if they are not lined up
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return the whole row, column or diagonal running through two squares, edge to
+     * edge, or an empty bitboard if they are not lined up
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    /**
+     * Gets every square a piece attacks, which for pawns is only their diagonal captures
+     *
+     * @param piece    the attacking piece
+     * @param square   the square it stands on
+     * @param occupied every occupied square on the board, used to stop sliders
+     * @return bitboard of attacked squares, including ones holding friendly pieces
+     */
+    public static long attacks(ChessPiece piece, int square, long occupied) {
+        return switch (piece.getPieceType()) {
+            case KING -> kingAttacks(square);
+            case QUEEN -> queenAttacks(square, occupied);
+            case BISHOP -> bishopAttacks(square, occupied);
+            case KNIGHT -> knightAttacks(square);
+            case ROOK -> rookAttacks(square, occupied);
+            case PAWN -> pawnAttacks(piece.getTeamColor(), square);
+        };
+    }
+
+    private static long stepAttacks(int square, int[][] directions) {
+        long attacks = 0;
+        for (int[] dir : directions) {
+            int newRow = (square >>> 3) + dir[0];
+            int newCol = (square & 7) + dir[1];
+            if (newRow >= 0 && newRow < 8 && newCol >= 0 && newCol < 8) {
+                attacks |= 1L << (newRow * 8 + newCol);
+            }
+        }
+        return attacks;
+    }
+
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0;
+        for (int[] dir : directions) {
+            int newRow = (square >>> 3) + dir[0];
+            int newCol = (square & 7) + dir[1];
+            while (newRow >= 0 && newRow < 8 && newCol >= 0 && newCol < 8) {
+                long bit = 1L << (newRow * 8 + newCol);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                newRow += dir[0];
+                newCol += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    // The squares whose occupancy matters: every ray square except the last one on the edge
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] dir : directions) {
+            int newRow = (square >>> 3) + dir[0];
+            int newCol = (square & 7) + dir[1];
+            while (newRow + dir[0] >= 0 && newRow + dir[0] < 8 && newCol + dir[1] >= 0 && newCol + dir[1] < 8) {
+                mask |= 1L << (newRow * 8 + newCol);
+                newRow += dir[0];
+                newCol += dir[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initSlider(int square, int[][] directions, long[] magics, long[] masks, int[] shifts, long[][] attacks) {
+        long mask = relevantBlockers(square, directions);
+        int bits = Long.bitCount(mask);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        attacks[square] = new long[1 << bits];
+        // Walk every subset of the mask (Carry-Rippler trick) and file its attack set under its magic index
+        long blockers = 0;
+        do {
+            int index = (int) ((blockers * magics[square]) >>> shifts[square]);
+            attacks[square][index] = slidingAttacks(square, blockers, directions);
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+    }
+}
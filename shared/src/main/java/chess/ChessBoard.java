@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -12,6 +11,21 @@ import java.util.Objects;
 public class ChessBoard {
 
     ChessPiece[][] squares = new ChessPiece[8][8];
+    /*
+     * One bitboard per color and piece type, indexed by pieceIndex(), plus one
+     * occupancy mask per color. Bit 0 is row 1 column 1 and bit 63 is row 8 column 8.
+     * They are derived from squares, so they are left out of the JSON and rebuilt
+     * the first time a deserialized board is used.
+     */
+    private transient long[] pieceBitboards;
+    private transient long[] colorBitboards;
+    // Zobrist key of the pieces on the board, kept up to date alongside the bitboards
+    private transient long zobristKey;
+    // PieceSquareTables totals for the pieces on the board, kept up to date the same way
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
+
     public ChessBoard() {
         
     }
@@ -23,7 +37,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        setPiece(squareOf(position), piece);
     }
 
     /**
@@ -37,6 +51,265 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets a chess piece on the chessboard
+     *
+     * @param square The square index (0-63) to get the piece from
+     * @return Either the piece on the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    /**
+     * Puts a piece on a square, replacing whatever was there and keeping the
+     * bitboards in step with the squares
+     *
+     * @param square the square index (0-63)
+     * @param piece  the piece to put there, or null to empty the square
+     */
+    public void setPiece(int square, ChessPiece piece) {
+        ensureBitboards();
+        long bit = 1L << square;
+        ChessPiece oldPiece = squares[square >>> 3][square & 7];
+        if (oldPiece != null) {
+            pieceBitboards[pieceIndex(oldPiece)] &= ~bit;
+            colorBitboards[oldPiece.getTeamColor().ordinal()] &= ~bit;
+            zobristKey ^= Zobrist.pieceSquare(oldPiece, square);
+            removeScore(pieceIndex(oldPiece), square);
+        }
+        squares[square >>> 3][square & 7] = piece;
+        if (piece != null) {
+            pieceBitboards[pieceIndex(piece)] |= bit;
+            colorBitboards[piece.getTeamColor().ordinal()] |= bit;
+            zobristKey ^= Zobrist.pieceSquare(piece, square);
+            addScore(pieceIndex(piece), square);
+        }
+    }
+
+    private void addScore(int pieceIndex, int square) {
+        middlegameScore += PieceSquareTables.middlegame(pieceIndex, square);
+        endgameScore += PieceSquareTables.endgame(pieceIndex, square);
+        phase += PieceSquareTables.phase(pieceIndex);
+    }
+
+    private void removeScore(int pieceIndex, int square) {
+        middlegameScore -= PieceSquareTables.middlegame(pieceIndex, square);
+        endgameScore -= PieceSquareTables.endgame(pieceIndex, square);
+        phase -= PieceSquareTables.phase(pieceIndex);
+    }
+
+    /**
+     * Moves a piece in place, capturing whatever stands on the destination square.
+     * Nothing is checked; this is the fast path used to try out moves.
+     *
+     * @param from      the square index of the moving piece
+     * @param to        the square index it moves to
+     * @param promotion the type a pawn promotes to, or null
+     * @return an undo record that {@link #unmakeMove(int)} uses to put the board back
+     */
+    public int makeMove(int from, int to, ChessPiece.PieceType promotion) {
+        ChessPiece moved = getPiece(from);
+        ChessPiece captured = getPiece(to);
+        if (promotion != null) {
+            setPiece(to, ChessPiece.of(moved.getTeamColor(), promotion));
+        } else {
+            setPiece(to, moved);
+        }
+        setPiece(from, null);
+        // from and to take 6 bits each, then the moved and captured pieces as pieceIndex() + 1 (0 for none)
+        return from | (to << 6) | ((pieceIndex(moved) + 1) << 12) | ((captured == null ? 0 : pieceIndex(captured) + 1) << 16);
+    }
+
+    /**
+     * Makes a {@link Move}-encoded move in place
+     *
+     * @return an undo record that {@link #unmakeMove(int)} uses to put the board back
+     */
+    public int makeMove(int move) {
+        return makeMove(Move.from(move), Move.to(move), Move.promotion(move));
+    }
+
+    /**
+     * Takes back a move made with {@link #makeMove(int, int, ChessPiece.PieceType)}
+     *
+     * @param undo the record makeMove returned
+     */
+    public void unmakeMove(int undo) {
+        int from = undo & 63;
+        int to = (undo >>> 6) & 63;
+        int captured = (undo >>> 16) & 15;
+        setPiece(from, pieceAtIndex(((undo >>> 12) & 15) - 1));
+        setPiece(to, captured == 0 ? null : pieceAtIndex(captured - 1));
+    }
+
+    /**
+     * @return material and piece-square total for the middlegame, white minus black,
+     * from {@link PieceSquareTables}
+     */
+    public int getMiddlegameScore() {
+        ensureBitboards();
+        return middlegameScore;
+    }
+
+    /**
+     * @return material and piece-square total for the endgame, white minus black
+     */
+    public int getEndgameScore() {
+        ensureBitboards();
+        return endgameScore;
+    }
+
+    /**
+     * @return how much non-pawn material is left, for {@link PieceSquareTables#taper}
+     */
+    public int getPhase() {
+        ensureBitboards();
+        return phase;
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given color and type
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureBitboards();
+        return pieceBitboards[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given color
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        ensureBitboards();
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        ensureBitboards();
+        return colorBitboards[0] | colorBitboards[1];
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, which does not include
+     * whose turn it is (see {@link ChessGame#positionKey()})
+     */
+    public long getZobristKey() {
+        ensureBitboards();
+        return zobristKey;
+    }
+
+    /**
+     * Finds a team's king. The king bitboard is kept up to date by every
+     * setPiece, makeMove and unmakeMove, so this is a single bit scan.
+     *
+     * @return the square index of the team's king, or 64 if it has none
+     */
+    public int kingSquare(ChessGame.TeamColor color) {
+        return Long.numberOfTrailingZeros(getBitboard(color, ChessPiece.PieceType.KING));
+    }
+
+    /**
+     * Checks whether any piece of a team attacks a square, by looking outward from
+     * the square: the knight, king and pawn squares that could reach it, and the
+     * bishop and rook rays through it for a matching slider.
+     *
+     * @param square   the square index to test
+     * @param attacker the team that might be attacking it
+     * @return True if a piece of that team could capture on the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        ensureBitboards();
+        int base = attacker.ordinal() * 6;
+        long occupied = getOccupancy();
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (AttackTables.knightAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0
+                || (AttackTables.pawnAttacks(attacker.opponent(), square) & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0
+                || (AttackTables.kingAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()]) != 0
+                || (AttackTables.bishopAttacks(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens)) != 0
+                || (AttackTables.rookAttacks(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens)) != 0;
+    }
+
+    /**
+     * Finds every piece of a team that attacks a square
+     *
+     * @param square   the square index to test
+     * @param attacker the team whose pieces to look for
+     * @param occupied the occupancy to trace slider rays through, which lets a caller
+     *                 pretend a piece (such as a king stepping away) is not there
+     * @return bitboard of the attacking pieces
+     */
+    public long attackersOf(int square, ChessGame.TeamColor attacker, long occupied) {
+        ensureBitboards();
+        int base = attacker.ordinal() * 6;
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (AttackTables.knightAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (AttackTables.pawnAttacks(attacker.opponent(), square) & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (AttackTables.kingAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()])
+                | (AttackTables.bishopAttacks(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens))
+                | (AttackTables.rookAttacks(square, occupied) & (pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens));
+    }
+
+    /**
+     * @return the square index (0-63) of a position, counting from row 1 column 1
+     */
+    public static int squareOf(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+    }
+
+    /**
+     * @return the position of a square index (0-63)
+     */
+    public static ChessPosition positionOf(int square) {
+        return ChessPosition.ofSquare(square);
+    }
+
+    static int pieceIndex(ChessPiece piece) {
+        return piece.getTeamColor().ordinal() * 6 + piece.getPieceType().ordinal();
+    }
+
+    static ChessPiece pieceAtIndex(int index) {
+        return ChessPiece.ofIndex(index);
+    }
+
+    ChessBoard copy() {
+        ChessBoard newBoard = new ChessBoard();
+        for (int row = 0; row < 8; row++) {
+            newBoard.squares[row] = squares[row].clone();
+        }
+        ensureBitboards();
+        newBoard.pieceBitboards = pieceBitboards.clone();
+        newBoard.colorBitboards = colorBitboards.clone();
+        newBoard.zobristKey = zobristKey;
+        newBoard.middlegameScore = middlegameScore;
+        newBoard.endgameScore = endgameScore;
+        newBoard.phase = phase;
+        return newBoard;
+    }
+
+    private void ensureBitboards() {
+        if (pieceBitboards != null) {
+            return;
+        }
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        zobristKey = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = getPiece(square);
+            if (piece != null) {
+                pieceBitboards[pieceIndex(piece)] |= 1L << square;
+                colorBitboards[piece.getTeamColor().ordinal()] |= 1L << square;
+                zobristKey ^= Zobrist.pieceSquare(piece, square);
+                addScore(pieceIndex(piece), square);
+            }
+        }
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -46,29 +319,35 @@ public class ChessBoard {
         for (ChessPiece[] square : squares) {
             Arrays.fill(square, null);
         }
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        zobristKey = 0;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
         // Place pawns
         for (int i = 1; i <= 8; i++) {
-            addPiece(new ChessPosition(2, i), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, i), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, i), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, i), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
         // Place everything else white
-        addPiece(new ChessPosition(1,1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1,2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(1,5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1,6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1,7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1,8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1,2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1,5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1,6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1,7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1,8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
         // Place everything else black
-        addPiece(new ChessPosition(8,1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8,2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
-        addPiece(new ChessPosition(8,5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8,6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8,7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8,8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8,2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8,5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8,6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8,7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8,8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
     }
 
     @Override
@@ -77,11 +356,13 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        ensureBitboards();
+        that.ensureBitboards();
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 }
\ No newline at end of file
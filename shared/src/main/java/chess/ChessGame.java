@@ -1,8 +1,9 @@
 package chess;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -10,16 +11,32 @@ import java.util.Objects;
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
+ * <p>
+ * A game is not thread-safe. {@link #willBeInCheck} and {@link #perft} change the
+ * board and then undo it, so even these queries can see or leave a half-made move if
+ * another thread uses the same game. Give each thread its own {@link #copy()}.
  */
 public class ChessGame {
 
     TeamColor teamTurn = TeamColor.WHITE;
     GameState gameState = GameState.NORMAL;
     ChessBoard myBoard = new ChessBoard();
+    // Plies since the last capture or pawn move, and the move number, as FEN counts them
+    int halfmoveClock;
+    int fullmoveNumber = 1;
+    // Board undo records for makeMove(int), most recent last
+    private transient int[] undoStack = new int[64];
+    private transient int undoCount;
     public ChessGame() {
         this.myBoard.resetBoard();
     }
 
+    ChessGame(ChessBoard board, TeamColor teamTurn, GameState gameState) {
+        this.myBoard = board;
+        this.teamTurn = teamTurn;
+        this.gameState = gameState;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -42,6 +59,40 @@ public class ChessGame {
 
     public void setGameState(GameState state) { gameState = state; }
 
+    /**
+     * Reads a position from FEN. Castling rights and the en passant square must be
+     * well formed but are ignored, since this game has neither move.
+     *
+     * @param fen the FEN text; fields after the side to move are optional
+     * @return a new game at that position, with its game state worked out
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return this position as FEN, always with "-" for castling and en passant
+     */
+    public String toFen() {
+        return Fen.format(this);
+    }
+
+    /**
+     * @return plies since the last capture or pawn move made with {@link #makeMove(ChessMove)}
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the move number, starting at 1 and going up after each black move made
+     * with {@link #makeMove(ChessMove)}
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) {
@@ -53,7 +104,18 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurn, myBoard);
+        return Long.hashCode(positionKey());
+    }
+
+    /**
+     * Gets a 64-bit Zobrist key for the position: the pieces on the board and whose
+     * turn it is. Equal positions always get equal keys, and it costs nothing to
+     * compute because the board keeps its key up to date as pieces move.
+     *
+     * @return the position key
+     */
+    public long positionKey() {
+        return getBoard().getZobristKey() ^ Zobrist.sideToMove(teamTurn);
     }
 
     /**
@@ -61,7 +123,14 @@ public class ChessGame {
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        /**
+         * @return the other team
+         */
+        public TeamColor opponent() {
+            return (this == WHITE) ? BLACK : WHITE;
+        }
     }
 
     public enum GameState {
@@ -80,16 +149,52 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        if (getBoard().getPiece(startPosition) == null) {
+        ChessPiece piece = getBoard().getPiece(startPosition);
+        if (piece == null) {
             return null;
         }
-        List<ChessMove> validMoveList = new ArrayList<>();
-        for (ChessMove move: getBoard().getPiece(startPosition).pieceMoves(getBoard(), startPosition)) {
-            if (!willBeInCheck(move)) {
-                validMoveList.add(move);
+        MoveList moves = new MoveList();
+        generateLegalMoves(piece.getTeamColor(), 1L << ChessBoard.squareOf(startPosition), moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Gets every valid move for a team, whether or not it is that team's turn
+     *
+     * @param teamColor the team to get moves for
+     * @return the same moves validMoves gives for each of the team's pieces, together
+     */
+    public Collection<ChessMove> allLegalMoves(TeamColor teamColor) {
+        MoveList moves = new MoveList();
+        generateLegalMoves(teamColor, moves);
+        return moves.toChessMoves();
+    }
+
+    /**
+     * Adds every valid move for a team to a list as {@link Move}-encoded ints,
+     * without creating any ChessMove objects
+     *
+     * @param teamColor the team to get moves for
+     * @param moves     the list to add to
+     */
+    public void generateLegalMoves(TeamColor teamColor, MoveList moves) {
+        generateLegalMoves(teamColor, getBoard().getOccupancy(teamColor), moves);
+    }
+
+    private void generateLegalMoves(TeamColor teamColor, long fromSquares, MoveList moves) {
+        if (Long.bitCount(getBoard().getBitboard(teamColor, ChessPiece.PieceType.KING)) == 1) {
+            LegalMoveGenerator.generate(getBoard(), teamColor, fromSquares, moves);
+            return;
+        }
+        // Pins and checks need exactly one king, so any other board tries each move instead
+        for (; fromSquares != 0; fromSquares &= fromSquares - 1) {
+            ChessPosition position = ChessBoard.positionOf(Long.numberOfTrailingZeros(fromSquares));
+            for (ChessMove move : getBoard().getPiece(position).pieceMoves(getBoard(), position)) {
+                if (!willBeInCheck(move)) {
+                    moves.add(Move.of(move, getBoard()));
+                }
             }
         }
-        return validMoveList;
     }
 
     /**
@@ -106,17 +211,16 @@ public class ChessGame {
             throw new InvalidMoveException("No piece to move");
         } else if (getBoard().getPiece(move.getStartPosition()).getTeamColor() != getTeamTurn()) {
             throw new InvalidMoveException("Not this team's turn");
-        } else if (validMoves(move.getStartPosition()) != null && validMoves(move.getStartPosition()).contains(move)) {
-            movePiece(getBoard().getPiece(move.getStartPosition()), move.getStartPosition(), move.getEndPosition(), move.getPromotionPiece());
-            if (isInCheckmate(getTeamTurn())) {
-                gameState = GameState.CHECKMATE;
-            } else if (isInStalemate(getTeamTurn())) {
-                gameState = GameState.STALEMATE;
-            } else if (isInCheck(getTeamTurn())) {
-                gameState = GameState.CHECK;
-            } else {
-                gameState = GameState.NORMAL;
+        } else if (isValidMove(move)) {
+            ChessPiece piece = getBoard().getPiece(move.getStartPosition());
+            boolean resetsClock = piece.getPieceType() == ChessPiece.PieceType.PAWN
+                    || getBoard().getPiece(move.getEndPosition()) != null;
+            halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+            if (piece.getTeamColor() == TeamColor.BLACK) {
+                fullmoveNumber++;
             }
+            movePiece(piece, move.getStartPosition(), move.getEndPosition(), move.getPromotionPiece());
+            updateGameState();
         } else if (willBeInCheck(move)){
             throw new InvalidMoveException("King may not remain in check");
         } else {
@@ -124,6 +228,23 @@ public class ChessGame {
         }
     }
 
+    /**
+     * Sets the game state from the position of the team whose turn it is
+     */
+    void updateGameState() {
+        boolean inCheck = isInCheck(getTeamTurn());
+        boolean noMoves = noValidMoves(getTeamTurn());
+        if (inCheck && noMoves) {
+            gameState = GameState.CHECKMATE;
+        } else if (noMoves) {
+            gameState = GameState.STALEMATE;
+        } else if (inCheck) {
+            gameState = GameState.CHECK;
+        } else {
+            gameState = GameState.NORMAL;
+        }
+    }
+
     /**
      * Determines if the given team is in check
      *
@@ -156,16 +277,16 @@ public class ChessGame {
     }
 
     public boolean noValidMoves(ChessGame.TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition testPosition = new ChessPosition(row, col);
-                ChessPiece testPiece = getBoard().getPiece(testPosition);
-                if (testPiece != null && testPiece.getTeamColor() == teamColor && !validMoves(testPosition).isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        MoveList moves = new MoveList();
+        generateLegalMoves(teamColor, moves);
+        return moves.isEmpty();
+    }
+
+    private boolean isValidMove(ChessMove move) {
+        int start = ChessBoard.squareOf(move.getStartPosition());
+        MoveList moves = new MoveList();
+        generateLegalMoves(getBoard().getPiece(start).getTeamColor(), 1L << start, moves);
+        return moves.contains(Move.of(move, getBoard()));
     }
 
     /**
@@ -189,13 +310,12 @@ public class ChessGame {
     public void movePiece(ChessPiece piece, ChessPosition oldPosition, ChessPosition newPosition, ChessPiece.PieceType promotion) {
         if (promotion != null) {
             // Move Pawn
-            getBoard().squares[newPosition.getRow() - 1][newPosition.getColumn() - 1] = new ChessPiece(getTeamTurn(), promotion);
-            getBoard().squares[oldPosition.getRow() - 1][oldPosition.getColumn() - 1] = null;
+            getBoard().setPiece(ChessBoard.squareOf(newPosition), ChessPiece.of(getTeamTurn(), promotion));
         } else {
             // Move Other Pieces
-            getBoard().squares[newPosition.getRow() - 1][newPosition.getColumn() - 1] = piece;
-            getBoard().squares[oldPosition.getRow() - 1][oldPosition.getColumn() - 1] = null;
+            getBoard().setPiece(ChessBoard.squareOf(newPosition), piece);
         }
+        getBoard().setPiece(ChessBoard.squareOf(oldPosition), null);
         // Switch turns
         if (gameState == GameState.NORMAL || gameState == GameState.CHECK) {
             teamTurn = (getTeamTurn() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
@@ -203,61 +323,121 @@ public class ChessGame {
     }
 
     public boolean willBeInCheck(ChessMove testMove) {
-        ChessBoard testBoard = null;
-        testBoard = copyBoard();
-        if (testMove.getPromotionPiece() != null) {
-            // Move Pawn
-            ChessPiece movingPawn = new ChessPiece(getTeamTurn(), testMove.getPromotionPiece());
-            testBoard.squares[testMove.getEndPosition().getRow() - 1][testMove.getEndPosition().getColumn() - 1] = movingPawn;
-            testBoard.squares[testMove.getStartPosition().getRow() - 1][testMove.getStartPosition().getColumn() - 1] = null;
-        } else {
-            // Move Other Pieces
-            ChessPiece movingPiece = testBoard.getPiece(testMove.getStartPosition());
-            testBoard.squares[testMove.getEndPosition().getRow() - 1][testMove.getEndPosition().getColumn() - 1] = movingPiece;
-            testBoard.squares[testMove.getStartPosition().getRow() - 1][testMove.getStartPosition().getColumn() - 1] = null;
-        }
-        return canKillKing(testBoard, getBoard().getPiece(testMove.getStartPosition()).getTeamColor());
+        int start = ChessBoard.squareOf(testMove.getStartPosition());
+        TeamColor color = getBoard().getPiece(start).getTeamColor();
+        int undo = getBoard().makeMove(start, ChessBoard.squareOf(testMove.getEndPosition()), testMove.getPromotionPiece());
+        boolean inCheck = canKillKing(getBoard(), color);
+        getBoard().unmakeMove(undo);
+        return inCheck;
     }
 
     public ChessBoard copyBoard() {
-        ChessBoard newBoard = new ChessBoard();
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                if (getBoard().getPiece(position) != null) {
-                    ChessGame.TeamColor color = getBoard().getPiece(position).getTeamColor();
-                    ChessPiece.PieceType type = getBoard().getPiece(position).getPieceType();
-                    ChessPiece newPiece = new ChessPiece(color, type);
-                    newBoard.addPiece(position, newPiece);
-                }
-            }
+        return getBoard().copy();
+    }
+
+    /**
+     * @return a separate game with a copy of this board, turn and state, which can be
+     * changed without affecting this one
+     */
+    public ChessGame copy() {
+        ChessGame copy = new ChessGame(copyBoard(), teamTurn, gameState);
+        copy.halfmoveClock = halfmoveClock;
+        copy.fullmoveNumber = fullmoveNumber;
+        return copy;
+    }
+
+    /**
+     * Makes a {@link Move}-encoded move in place and passes the turn, without
+     * checking it or updating the game state. Used to walk the game tree; every call
+     * must be matched by an {@link #unmakeMove()}.
+     *
+     * @param move a move generated for the team whose turn it is
+     */
+    public void makeMove(int move) {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
         }
-        return newBoard;
+        undoStack[undoCount++] = getBoard().makeMove(move);
+        teamTurn = teamTurn.opponent();
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int)}
+     */
+    public void unmakeMove() {
+        getBoard().unmakeMove(undoStack[--undoCount]);
+        teamTurn = teamTurn.opponent();
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree from this position, the standard
+     * way to check a move generator against known totals
+     *
+     * @param depth how many plies to look ahead
+     * @return the number of move sequences of exactly that length
+     */
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(depth, lists);
+    }
+
+    /**
+     * Splits {@link #perft(int)} by the first move, which narrows a wrong total down
+     * to the move that causes it
+     *
+     * @param depth how many plies to look ahead, including the first move
+     * @return each legal first move with the perft count below it
+     */
+    public Map<ChessMove, Long> divide(int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList rootMoves = new MoveList();
+        generateLegalMoves(teamTurn, rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            makeMove(rootMoves.get(i));
+            counts.put(Move.toChessMove(rootMoves.get(i)), perft(depth - 1));
+            unmakeMove();
+        }
+        return counts;
+    }
+
+    private long perft(int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        moves.clear();
+        generateLegalMoves(teamTurn, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            makeMove(moves.get(i));
+            nodes += perft(depth - 1, lists);
+            unmakeMove();
+        }
+        return nodes;
     }
 
     public boolean canKillKing(ChessBoard checkingBoard, TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition testPosition = new ChessPosition(row, col);
-                ChessPiece testPiece = checkingBoard.getPiece(testPosition);
-                if (testPiece != null && testPiece.getTeamColor() != teamColor) {
-                    Collection<ChessMove> potentialMoves = testPiece.pieceMoves(checkingBoard, testPosition);
-                    if (canPotentialMovesKillKing(checkingBoard, teamColor, potentialMoves)) {
-                        return true;
-                    }
-                }
+        for (long kings = checkingBoard.getBitboard(teamColor, ChessPiece.PieceType.KING); kings != 0; kings &= kings - 1) {
+            if (checkingBoard.isSquareAttacked(Long.numberOfTrailingZeros(kings), teamColor.opponent())) {
+                return true;
             }
         }
         return false;
     }
 
     public boolean canPotentialMovesKillKing(ChessBoard checkingBoard, TeamColor teamColor, Collection<ChessMove> potentialMoves) {
+        long kings = checkingBoard.getBitboard(teamColor, ChessPiece.PieceType.KING);
         for (ChessMove potentialMove: potentialMoves) {
-            ChessPiece killedPiece = checkingBoard.getPiece(potentialMove.getEndPosition());
-            if (killedPiece != null && killedPiece.getPieceType() == ChessPiece.PieceType.KING && killedPiece.getTeamColor() == teamColor) {
+            if ((kings & (1L << ChessBoard.squareOf(potentialMove.getEndPosition()))) != 0) {
                 return true;
             }
         }
         return false;
     }
-}
\ No newline at end of file
+}
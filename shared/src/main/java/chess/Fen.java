@@ -0,0 +1,229 @@
+package chess;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation, e.g.
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}.
+ * <p>
+ * Parsing walks the characters once with a cursor instead of splitting into fields,
+ * so nothing is copied out of the input. Castling rights and the en passant square are
+ * checked for form but otherwise ignored, since neither move exists under these rules,
+ * and are always written as "-". Everything after the side to move may be left off,
+ * which reads as no rights, no en passant square and counters of 0 and 1.
+ */
+final class Fen {
+
+    private Fen() {
+    }
+
+    static ChessGame parse(CharSequence fen) {
+        Cursor cursor = new Cursor(fen);
+        cursor.skipSpaces();
+
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int col = 1;
+        while (cursor.hasNext() && cursor.peek() != ' ') {
+            char c = cursor.next();
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw cursor.error("rank " + row + " does not have 8 squares");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 9) {
+                    throw cursor.error("rank " + row + " has more than 8 squares");
+                }
+            } else {
+                ChessPiece.PieceType type = pieceType(Character.toLowerCase(c));
+                if (type == null) {
+                    throw cursor.error("unknown piece '" + c + "'");
+                }
+                if (col > 8) {
+                    throw cursor.error("rank " + row + " has more than 8 squares");
+                }
+                ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.setPiece((row - 1) * 8 + col - 1, ChessPiece.of(color, type));
+                col++;
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw cursor.error("piece placement does not cover all 8 ranks");
+        }
+
+        cursor.expectSpace();
+        ChessGame.TeamColor turn = switch (cursor.hasNext() ? cursor.next() : ' ') {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw cursor.error("side to move must be 'w' or 'b'");
+        };
+
+        int halfmoveClock = 0;
+        int fullmoveNumber = 1;
+        if (cursor.skipSpaces()) {
+            skipCastling(cursor);
+            if (cursor.skipSpaces()) {
+                skipEnPassant(cursor);
+                if (cursor.skipSpaces()) {
+                    halfmoveClock = cursor.number();
+                    if (cursor.skipSpaces()) {
+                        fullmoveNumber = cursor.number();
+                        if (fullmoveNumber < 1) {
+                            throw cursor.error("fullmove number must be at least 1");
+                        }
+                        cursor.skipSpaces();
+                    }
+                }
+            }
+        }
+        if (cursor.hasNext()) {
+            throw cursor.error("unexpected '" + cursor.peek() + "'");
+        }
+
+        ChessGame game = new ChessGame(board, turn, ChessGame.GameState.NORMAL);
+        game.halfmoveClock = halfmoveClock;
+        game.fullmoveNumber = fullmoveNumber;
+        game.updateGameState();
+        return game;
+    }
+
+    static String format(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece((row - 1) * 8 + col - 1);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = pieceLetter(piece.getPieceType());
+                fen.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w" : " b")
+                .append(" - - ")
+                .append(game.getHalfmoveClock())
+                .append(' ')
+                .append(game.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    private static void skipCastling(Cursor cursor) {
+        if (cursor.hasNext() && cursor.peek() == '-') {
+            cursor.next();
+            return;
+        }
+        int seen = 0;
+        while (cursor.hasNext() && cursor.peek() != ' ') {
+            int flag = "KQkq".indexOf(cursor.next());
+            if (flag < 0 || (seen & (1 << flag)) != 0) {
+                throw cursor.error("castling rights must be '-' or some of KQkq");
+            }
+            seen |= 1 << flag;
+        }
+        if (seen == 0) {
+            throw cursor.error("missing castling rights");
+        }
+    }
+
+    private static void skipEnPassant(Cursor cursor) {
+        char file = cursor.hasNext() ? cursor.next() : ' ';
+        if (file == '-') {
+            return;
+        }
+        char rank = cursor.hasNext() ? cursor.next() : ' ';
+        if (file < 'a' || file > 'h' || (rank != '3' && rank != '6')) {
+            throw cursor.error("en passant square must be '-' or on rank 3 or 6");
+        }
+    }
+
+    private static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> null;
+        };
+    }
+
+    private static char pieceLetter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+    }
+
+    private static class Cursor {
+        private final CharSequence text;
+        private int index;
+
+        Cursor(CharSequence text) {
+            this.text = text;
+        }
+
+        boolean hasNext() {
+            return index < text.length();
+        }
+
+        char peek() {
+            return text.charAt(index);
+        }
+
+        char next() {
+            return text.charAt(index++);
+        }
+
+        /**
+         * @return true if there is another field after the spaces
+         */
+        boolean skipSpaces() {
+            while (hasNext() && Character.isWhitespace(peek())) {
+                index++;
+            }
+            return hasNext();
+        }
+
+        void expectSpace() {
+            if (!hasNext() || !Character.isWhitespace(peek())) {
+                throw error("expected a space");
+            }
+            skipSpaces();
+        }
+
+        int number() {
+            int start = index;
+            long value = 0;
+            while (hasNext() && peek() >= '0' && peek() <= '9') {
+                value = Math.min(value * 10 + (next() - '0'), Integer.MAX_VALUE);
+            }
+            if (index == start) {
+                throw error("expected a number");
+            }
+            return (int) value;
+        }
+
+        IllegalArgumentException error(String problem) {
+            return new IllegalArgumentException("Invalid FEN at index " + index + ": " + problem + " in \"" + text + "\"");
+        }
+    }
+}
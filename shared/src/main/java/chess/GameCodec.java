@@ -0,0 +1,91 @@
+package chess;
+
+/**
+ * A compact binary encoding of a {@link ChessGame} for storage, 38 bytes for any
+ * position against well over a kilobyte of Gson JSON.
+ * <p>
+ * Layout, version 1:
+ * <ul>
+ *     <li>byte 0: the format version</li>
+ *     <li>byte 1: bit 0 set when black is to move, bits 1-3 the game state ordinal;
+ *     the high bits are kept clear for rule flags such as castling rights</li>
+ *     <li>bytes 2-3 and 4-5: the halfmove clock and fullmove number, big-endian and
+ *     capped at 65535</li>
+ *     <li>bytes 6-37: 4 bits per square, square 0 in the low half of byte 6; 0 is an
+ *     empty square and 1-12 a piece's {@link ChessBoard#pieceIndex} plus one</li>
+ * </ul>
+ * The first byte is never '{', so stored games can be told apart from older JSON.
+ */
+public final class GameCodec {
+
+    public static final int VERSION = 1;
+    public static final int ENCODED_LENGTH = 38;
+
+    private static final int BOARD_OFFSET = 6;
+    private static final ChessGame.GameState[] STATES = ChessGame.GameState.values();
+    private static final int PIECE_CODES = ChessGame.TeamColor.values().length * ChessPiece.PieceType.values().length;
+
+    private GameCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[ENCODED_LENGTH];
+        bytes[0] = VERSION;
+        int flags = game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0;
+        flags |= game.getGameState().ordinal() << 1;
+        bytes[1] = (byte) flags;
+        putShort(bytes, 2, game.getHalfmoveClock());
+        putShort(bytes, 4, game.getFullmoveNumber());
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                int code = ChessBoard.pieceIndex(piece) + 1;
+                bytes[BOARD_OFFSET + (square >>> 1)] |= (byte) (code << ((square & 1) * 4));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not an encoding this version understands
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Unknown game encoding version " + (bytes.length == 0 ? "(empty)" : bytes[0]));
+        }
+        if (bytes.length != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Encoded game should be " + ENCODED_LENGTH + " bytes, got " + bytes.length);
+        }
+        int flags = bytes[1] & 0xFF;
+        int state = (flags >>> 1) & 7;
+        if (state >= STATES.length) {
+            throw new IllegalArgumentException("Unknown game state " + state);
+        }
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int code = (bytes[BOARD_OFFSET + (square >>> 1)] >>> ((square & 1) * 4)) & 0xF;
+            if (code > PIECE_CODES) {
+                throw new IllegalArgumentException("Unknown piece code " + code + " on square " + square);
+            }
+            if (code != 0) {
+                board.setPiece(square, ChessPiece.ofIndex(code - 1));
+            }
+        }
+        ChessGame.TeamColor turn = (flags & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        ChessGame game = new ChessGame(board, turn, STATES[state]);
+        game.halfmoveClock = getShort(bytes, 2);
+        game.fullmoveNumber = getShort(bytes, 4);
+        return game;
+    }
+
+    private static void putShort(byte[] bytes, int offset, int value) {
+        int capped = Math.min(Math.max(value, 0), 0xFFFF);
+        bytes[offset] = (byte) (capped >>> 8);
+        bytes[offset + 1] = (byte) capped;
+    }
+
+    private static int getShort(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,98 @@
+package chess;
+
+/**
+ * Generates only legal moves, without trying each one on the board.
+ * <p>
+ * Once per position it works out which enemy pieces give check and which of the
+ * team's pieces are pinned to their king. A non-king move is then legal exactly
+ * when it lands inside the check mask (captures the checker or blocks its ray)
+ * and, for a pinned piece, stays on the line through its king.
+ * King moves are legal when the destination is not attacked with the king lifted
+ * off the board, so it cannot hide behind itself from a slider.
+ * <p>
+ * This assumes the team has exactly one king; callers fall back to trial moves otherwise.
+ */
+final class LegalMoveGenerator {
+
+    private LegalMoveGenerator() {
+    }
+
+    /**
+     * Adds every legal move for a team's pieces on the given squares
+     *
+     * @param board       the board to generate on
+     * @param color       the team to move
+     * @param fromSquares bitboard of the squares to generate moves from
+     * @param moves       where to add the {@link Move}-encoded moves
+     */
+    static void generate(ChessBoard board, ChessGame.TeamColor color, long fromSquares, MoveList moves) {
+        ChessGame.TeamColor enemy = color.opponent();
+        int kingSquare = board.kingSquare(color);
+        long own = board.getOccupancy(color);
+        long theirs = board.getOccupancy(enemy);
+        long occupied = own | theirs;
+        long checkers = board.attackersOf(kingSquare, enemy, occupied);
+
+        if ((fromSquares & (1L << kingSquare)) != 0) {
+            long kingless = occupied & ~(1L << kingSquare);
+            for (long targets = AttackTables.kingAttacks(kingSquare) & ~own; targets != 0; targets &= targets - 1) {
+                int target = Long.numberOfTrailingZeros(targets);
+                if (board.attackersOf(target, enemy, kingless) == 0) {
+                    moves.add(Move.of(kingSquare, target, null, (theirs & (1L << target)) != 0));
+                }
+            }
+        }
+        if (Long.bitCount(checkers) > 1) {
+            // Double check: only the king can move
+            return;
+        }
+
+        long checkMask = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | AttackTables.between(kingSquare, checker);
+        }
+
+        long pinned = 0;
+        long enemyQueens = board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rookAttacks(kingSquare, 0) & (board.getBitboard(enemy, ChessPiece.PieceType.ROOK) | enemyQueens))
+                | (AttackTables.bishopAttacks(kingSquare, 0) & (board.getBitboard(enemy, ChessPiece.PieceType.BISHOP) | enemyQueens));
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = AttackTables.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+
+        for (long pieces = fromSquares & own & ~(1L << kingSquare); pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            ChessPiece piece = board.getPiece(square);
+            long targets = switch (piece.getPieceType()) {
+                case PAWN -> AttackTables.pawnTargets(color, square, occupied, theirs);
+                default -> AttackTables.attacks(piece, square, occupied) & ~own;
+            };
+            targets &= checkMask;
+            if ((pinned & (1L << square)) != 0) {
+                // A pinned piece may only slide along the line through its king and the pinner
+                targets &= AttackTables.line(kingSquare, square);
+            }
+            addMoves(square, targets, theirs, piece.getPieceType() == ChessPiece.PieceType.PAWN, moves);
+        }
+    }
+
+    private static void addMoves(int square, long targets, long theirs, boolean pawn, MoveList moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            int target = Long.numberOfTrailingZeros(targets);
+            boolean capture = (theirs & (1L << target)) != 0;
+            int row = target >>> 3;
+            if (pawn && (row == 0 || row == 7)) {
+                moves.add(Move.of(square, target, ChessPiece.PieceType.BISHOP, capture));
+                moves.add(Move.of(square, target, ChessPiece.PieceType.KNIGHT, capture));
+                moves.add(Move.of(square, target, ChessPiece.PieceType.QUEEN, capture));
+                moves.add(Move.of(square, target, ChessPiece.PieceType.ROOK, capture));
+            } else {
+                moves.add(Move.of(square, target, null, capture));
+            }
+        }
+    }
+}
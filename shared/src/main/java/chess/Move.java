@@ -0,0 +1,60 @@
+package chess;
+
+/**
+ * Packs a move into the low 16 bits of an int, so move generation and search can
+ * work with plain ints and only build {@link ChessMove} objects at the public API.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square (square indexes as in
+ * {@link ChessBoard}), bits 12-14 the promotion piece as its ordinal plus one (0 for
+ * none), and bit 15 is set when the move captures a piece.
+ */
+public final class Move {
+
+    public static final int NONE = 0;
+    public static final int CAPTURE_FLAG = 1 << 15;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion, boolean capture) {
+        int move = from | (to << 6);
+        if (promotion != null) {
+            move |= (promotion.ordinal() + 1) << 12;
+        }
+        return capture ? move | CAPTURE_FLAG : move;
+    }
+
+    /**
+     * Encodes a ChessMove, looking at the board to decide the capture flag
+     */
+    public static int of(ChessMove move, ChessBoard board) {
+        int to = ChessBoard.squareOf(move.getEndPosition());
+        return of(ChessBoard.squareOf(move.getStartPosition()), to, move.getPromotionPiece(), board.getPiece(to) != null);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the type a pawn promotes to, or null if this is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE_FLAG) != 0;
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessBoard.positionOf(from(move)), ChessBoard.positionOf(to(move)), promotion(move));
+    }
+}
@@ -6,69 +6,40 @@ import java.util.List;
 
 public class PieceMovesCalculator {
 
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
-        switch (piece.getPieceType()) {
-            case BISHOP:
-                BishopMovesCalculator bishop = new BishopMovesCalculator();
-                return bishop.pieceMoves(board, myPosition, piece);
-            case KING:
-                KingMovesCalculator king = new KingMovesCalculator();
-                return king.pieceMoves(board, myPosition, piece);
-            case KNIGHT:
-                KnightMovesCalculator knight = new KnightMovesCalculator();
-                return knight.pieceMoves(board, myPosition, piece);
-            case PAWN:
-                PawnMovesCalculator pawn = new PawnMovesCalculator();
-                return pawn.pieceMoves(board, myPosition, piece);
-            case QUEEN:
-                QueenMovesCalculator queen = new QueenMovesCalculator();
-                return queen.pieceMoves(board, myPosition, piece);
-            case ROOK:
-                RookMovesCalculator rook = new RookMovesCalculator();
-                return rook.pieceMoves(board, myPosition, piece);
-            default:
-                return List.of();
-        }
+    // The calculators hold no state, so one of each is shared by every call
+    private static final PieceMovesCalculator[] CALCULATORS = new PieceMovesCalculator[ChessPiece.PieceType.values().length];
+    static {
+        CALCULATORS[ChessPiece.PieceType.BISHOP.ordinal()] = new BishopMovesCalculator();
+        CALCULATORS[ChessPiece.PieceType.KING.ordinal()] = new KingMovesCalculator();
+        CALCULATORS[ChessPiece.PieceType.KNIGHT.ordinal()] = new KnightMovesCalculator();
+        CALCULATORS[ChessPiece.PieceType.PAWN.ordinal()] = new PawnMovesCalculator();
+        CALCULATORS[ChessPiece.PieceType.QUEEN.ordinal()] = new QueenMovesCalculator();
+        CALCULATORS[ChessPiece.PieceType.ROOK.ordinal()] = new RookMovesCalculator();
     }
 
-    public boolean checkDifferentColors(ChessPiece otherPiece, ChessPiece myPiece) {
-        return otherPiece.getTeamColor() != myPiece.getTeamColor();
+    /**
+     * @return the shared calculator for a piece type
+     */
+    public static PieceMovesCalculator forType(ChessPiece.PieceType type) {
+        return CALCULATORS[type.ordinal()];
     }
 
-    public void ifOpenAddSingle(ChessBoard board, ChessPosition myPosition, ChessPiece piece, Collection<ChessMove> moves, int[] direction) {
-        int newX = myPosition.getRow() + direction[0];
-        int newY = myPosition.getColumn() + direction[1];
-        if (newX > 0 && newX <= 8 && newY > 0 && newY <= 8) {
-            ChessPosition newPosition = new ChessPosition(newX, newY);
-            if (board.getPiece(newPosition) != null) {
-                if (checkDifferentColors(board.getPiece(newPosition), piece)) {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                }
-            } else {
-                moves.add(new ChessMove(myPosition, newPosition, null));
-            }
-        }
+    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
+        return forType(piece.getPieceType()).pieceMoves(board, myPosition, piece);
     }
 
-    public void ifOpenAddMultiple(ChessBoard board, ChessPosition myPosition, ChessPiece piece, Collection<ChessMove> moves, int[] direction) {
-        for (int i = 1; i < 8 ; i++) { //
-            int newX = myPosition.getRow() + (i * direction[0]);
-            int newY = myPosition.getColumn() + (i * direction[1]);
-            if (newX > 0 && newX <= 8 && newY > 0 && newY <= 8) {
-                ChessPosition newPosition = new ChessPosition(newX, newY);
-                if ((board.getPiece(newPosition) != null)) {
-                    if (checkDifferentColors(board.getPiece(newPosition), piece)) {
-                        moves.add(new ChessMove(myPosition, newPosition, null));
-                    }
-                    break;
-                } else {
-                    moves.add(new ChessMove(myPosition, newPosition, null));
-                }
-            } else {
-                break;
-            }
+    /**
+     * Adds a move from myPosition to every square in targets
+     */
+    public void addMoves(ChessPosition myPosition, long targets, Collection<ChessMove> moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(new ChessMove(myPosition, ChessBoard.positionOf(Long.numberOfTrailingZeros(targets)), null));
         }
     }
+
+    public long notOwnPieces(ChessBoard board, ChessPiece piece) {
+        return ~board.getOccupancy(piece.getTeamColor());
+    }
 }
 
 
@@ -76,10 +47,8 @@ class BishopMovesCalculator extends PieceMovesCalculator {
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
         List<ChessMove> moveList = new ArrayList<>();
-        int[][] diagonalDirections = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
-        for (int[] dir: diagonalDirections) {
-            ifOpenAddMultiple(board, myPosition, piece, moveList, dir);
-        }
+        long targets = AttackTables.bishopAttacks(ChessBoard.squareOf(myPosition), board.getOccupancy());
+        addMoves(myPosition, targets & notOwnPieces(board, piece), moveList);
         return moveList;
     }
 }
@@ -88,10 +57,8 @@ class KingMovesCalculator extends PieceMovesCalculator {
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
         List<ChessMove> moveList = new ArrayList<>();
-        int[][] kingMoveDirections = {{-1, -1}, {-1, 0}, {-1, 1}, {0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1}};
-        for (int[] dir: kingMoveDirections) {
-            ifOpenAddSingle(board, myPosition, piece, moveList, dir);
-        }
+        long targets = AttackTables.kingAttacks(ChessBoard.squareOf(myPosition));
+        addMoves(myPosition, targets & notOwnPieces(board, piece), moveList);
         return moveList;
     }
 }
@@ -100,10 +67,8 @@ class KnightMovesCalculator extends PieceMovesCalculator {
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
         List<ChessMove> moveList = new ArrayList<>();
-        int[][] knightMoveDirections = {{-1, 2}, {-1, -2}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {2, 1}, {2, -1}};
-        for (int[] dir: knightMoveDirections) {
-            ifOpenAddSingle(board, myPosition, piece, moveList, dir);
-        }
+        long targets = AttackTables.knightAttacks(ChessBoard.squareOf(myPosition));
+        addMoves(myPosition, targets & notOwnPieces(board, piece), moveList);
         return moveList;
     }
 }
@@ -112,33 +77,11 @@ class PawnMovesCalculator extends PieceMovesCalculator {
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
         List<ChessMove> moveList = new ArrayList<>();
-        int[][] pawnMoveDirections = {{1, -1}, {1, 0}, {1, 1}, {2, 0}};
         ChessGame.TeamColor color = piece.getTeamColor();
-        if (color == ChessGame.TeamColor.BLACK) {
-            pawnMoveDirections[0][0] = -1;
-            pawnMoveDirections[1][0] = -1;
-            pawnMoveDirections[2][0] = -1;
-            pawnMoveDirections[3][0] = -2;
-        }
-        for (int[] dir: pawnMoveDirections) {
-            int newX = myPosition.getRow() + dir[0];
-            int newY = myPosition.getColumn() + dir[1];
-            if (newX > 0 && newX <= 8 && newY > 0 && newY <= 8) {
-                ChessPosition newPosition = new ChessPosition(newX, newY);
-                if (dir[1] != 0 && board.getPiece(newPosition) != null) {
-                    if (checkDifferentColors(board.getPiece(newPosition), piece)) {
-                        addPawnMove(myPosition, newPosition, color, moveList);
-                    }
-                } else if (dir[1] == 0 && board.getPiece(newPosition) == null) {
-                    if (myPosition.getRow() == 2 && dir[0] == 2 && board.getPiece(new ChessPosition(newX - 1, newY)) == null) {
-                        moveList.add(new ChessMove(myPosition, newPosition, null));
-                    } else if (myPosition.getRow() == 7 && dir[0] == -2 && board.getPiece(new ChessPosition(newX + 1, newY)) == null){
-                        moveList.add(new ChessMove(myPosition, newPosition, null));
-                    } else if ((dir[0] == 1) || (dir[0] == -1)) {
-                        addPawnMove(myPosition, newPosition, color, moveList);
-                    }
-                }
-            }
+        long targets = AttackTables.pawnTargets(color, ChessBoard.squareOf(myPosition), board.getOccupancy(),
+                board.getOccupancy(color.opponent()));
+        for (; targets != 0; targets &= targets - 1) {
+            addPawnMove(myPosition, ChessBoard.positionOf(Long.numberOfTrailingZeros(targets)), color, moveList);
         }
         return moveList;
     }
@@ -163,10 +106,8 @@ class QueenMovesCalculator extends PieceMovesCalculator {
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
         List<ChessMove> moveList = new ArrayList<>();
-        int[][] queenMoveDirections = {{-1, -1}, {-1, 0}, {-1, 1}, {0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1}};
-        for (int[] dir: queenMoveDirections) {
-            ifOpenAddMultiple(board, myPosition, piece, moveList, dir);
-        }
+        long targets = AttackTables.queenAttacks(ChessBoard.squareOf(myPosition), board.getOccupancy());
+        addMoves(myPosition, targets & notOwnPieces(board, piece), moveList);
         return moveList;
     }
 }
@@ -175,10 +116,8 @@ class RookMovesCalculator extends PieceMovesCalculator {
     @Override
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece) {
         List<ChessMove> moveList = new ArrayList<>();
-        int[][] rookMoveDirections = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
-        for (int[] dir: rookMoveDirections) {
-            ifOpenAddMultiple(board, myPosition, piece, moveList, dir);
-        }
+        long targets = AttackTables.rookAttacks(ChessBoard.squareOf(myPosition), board.getOccupancy());
+        addMoves(myPosition, targets & notOwnPieces(board, piece), moveList);
         return moveList;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for Zobrist hashing. A position's key is the XOR of the key for
+ * every piece on its square, plus the side-to-move key when black is to move, so
+ * moving a piece updates the key with two or three XORs.
+ * <p>
+ * The keys come from a fixed seed so they are the same in every run; anything
+ * stored by position key (such as an opening book file) stays valid.
+ * <p>
+ * This rule set has no castling or en passant, so there are no keys for them.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0DE_240L);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @return the key for a piece standing on a square
+     */
+    public static long pieceSquare(ChessPiece piece, int square) {
+        return PIECE_SQUARE[ChessBoard.pieceIndex(piece)][square];
+    }
+
+    /**
+     * @return the key mixed in when the given team is to move
+     */
+    public static long sideToMove(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0;
+    }
+}
@@ -0,0 +1,166 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.SanParser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from games in PGN, read with {@link PgnReader}.
+ * <p>
+ * The first few plies of every game are replayed, and each move is credited to the
+ * position it was played from: 2 points if the side that played it went on to win,
+ * 1 for a draw or an unknown result, and nothing for a loss. A game stops counting at
+ * the first move that cannot be played under these rules, such as castling or en
+ * passant, since every later position would be wrong.
+ * <p>
+ * Usage: {@code BookBuilder [-plies N] output.book input.pgn...}
+ */
+public class BookBuilder {
+
+    public static final int DEFAULT_MAX_PLIES = 20;
+
+    private final int maxPlies;
+    // Position key to move to accumulated weight
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+    private int gamesRead;
+    private int gamesCutShort;
+
+    public BookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public int gamesRead() {
+        return gamesRead;
+    }
+
+    /**
+     * @return how many games hit a move that could not be played before reaching the ply limit
+     */
+    public int gamesCutShort() {
+        return gamesCutShort;
+    }
+
+    /**
+     * Reads every game in a PGN stream, one game at a time
+     */
+    public void addPgn(Reader pgn) throws IOException {
+        PgnReader reader = new PgnReader(pgn);
+        PgnGame game;
+        while ((game = reader.next()) != null) {
+            gamesRead++;
+            addGame(game);
+        }
+    }
+
+    /**
+     * Adds every game in a PGN file
+     */
+    public void addPgn(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            addPgn(reader);
+        }
+    }
+
+    /**
+     * Writes the book, sorted for {@link OpeningBook} lookups
+     */
+    public void write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : weights.entrySet()) {
+            int highest = position.getValue().values().stream().mapToInt(Integer::intValue).max().orElse(0);
+            // Weights are stored in 16 bits; scale a very popular position's moves down together
+            double scale = highest > 0xFFFF ? (double) 0xFFFF / highest : 1;
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                int weight = (int) Math.max(1, Math.round(move.getValue() * scale));
+                if (move.getValue() > 0) {
+                    entries.add(new long[]{position.getKey(), move.getKey(), weight});
+                }
+            }
+        }
+        entries.sort(Comparator.<long[], Long>comparing(entry -> entry[0], Long::compareUnsigned)
+                .thenComparingLong(entry -> -entry[2]));
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        for (long[] entry : entries) {
+            data.writeLong(entry[0]);
+            data.writeShort((int) entry[1]);
+            data.writeShort((int) entry[2]);
+            data.writeInt(0);
+        }
+        data.flush();
+    }
+
+    private void addGame(PgnGame pgn) {
+        ChessGame game;
+        try {
+            game = pgn.tag("FEN") == null ? new ChessGame() : ChessGame.fromFen(pgn.tag("FEN"));
+        } catch (IllegalArgumentException e) {
+            gamesCutShort++;
+            return;
+        }
+        int plies = Math.min(maxPlies, pgn.moves().size());
+        for (int ply = 0; ply < plies; ply++) {
+            int move;
+            try {
+                move = SanParser.parseMove(game, pgn.moves().get(ply));
+            } catch (InvalidMoveException e) {
+                gamesCutShort++;
+                return;
+            }
+            int weight = weightFor(pgn.result(), game.getTeamTurn());
+            weights.computeIfAbsent(game.positionKey(), key -> new HashMap<>())
+                    .merge(move, weight, Integer::sum);
+            game.makeMove(move);
+        }
+    }
+
+    private static int weightFor(String result, ChessGame.TeamColor mover) {
+        return switch (result) {
+            case "1-0" -> mover == ChessGame.TeamColor.WHITE ? 2 : 0;
+            case "0-1" -> mover == ChessGame.TeamColor.BLACK ? 2 : 0;
+            default -> 1;
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int next = 0;
+        if (args.length > 1 && args[0].equals("-plies")) {
+            maxPlies = Integer.parseInt(args[1]);
+            next = 2;
+        }
+        if (args.length - next < 2) {
+            System.err.println("Usage: BookBuilder [-plies N] output.book input.pgn...");
+            System.exit(2);
+        }
+        Path output = Path.of(args[next]);
+        BookBuilder builder = new BookBuilder(maxPlies);
+        for (int i = next + 1; i < args.length; i++) {
+            builder.addPgn(Path.of(args[i]));
+        }
+        builder.write(output);
+        System.out.printf("Read %,d games (%,d stopped early at an unplayable move), wrote %s%n",
+                builder.gamesRead(), builder.gamesCutShort(), output);
+    }
+}
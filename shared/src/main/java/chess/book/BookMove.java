@@ -0,0 +1,12 @@
+package chess.book;
+
+import chess.ChessMove;
+
+/**
+ * A move the opening book knows for a position
+ *
+ * @param move   the move
+ * @param weight how strongly the book recommends it, relative to the position's other moves
+ */
+public record BookMove(ChessMove move, int weight) {
+}
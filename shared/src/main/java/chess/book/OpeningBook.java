@@ -0,0 +1,160 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Looks up opening moves in a book file without reading it onto the heap.
+ * <p>
+ * The file is a flat array of 16-byte big-endian entries, in the spirit of the
+ * Polyglot format but keyed by this project's {@link ChessGame#positionKey()}:
+ * <pre>
+ *   long  position key
+ *   short {@link Move}-encoded move
+ *   short weight (unsigned)
+ *   int   reserved, zero
+ * </pre>
+ * Entries are sorted by key as an unsigned number, then by weight from highest to
+ * lowest, so a lookup is a binary search followed by a short scan. The file is
+ * memory-mapped in slices of up to 1 GB, so the operating system pages in only the
+ * parts that lookups touch. {@link BookBuilder} writes these files.
+ */
+public class OpeningBook {
+
+    static final int ENTRY_BYTES = 16;
+
+    // Entries per mapped slice; a power of two so an index splits with a shift
+    private static final int SLICE_SHIFT = 26;
+    private static final long SLICE_ENTRIES = 1L << SLICE_SHIFT;
+
+    private final ByteBuffer[] slices;
+    private final long entryCount;
+
+    private OpeningBook(ByteBuffer[] slices, long entryCount) {
+        this.slices = slices;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Maps a book file. The mapping stays valid after the file channel is closed.
+     *
+     * @throws IOException if the file cannot be read or is not a whole number of entries
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0) {
+                throw new IOException("Not an opening book: " + file + " is " + size + " bytes");
+            }
+            long entryCount = size / ENTRY_BYTES;
+            int sliceCount = (int) ((entryCount + SLICE_ENTRIES - 1) >>> SLICE_SHIFT);
+            ByteBuffer[] slices = new ByteBuffer[sliceCount];
+            for (int i = 0; i < sliceCount; i++) {
+                long offset = (long) i * SLICE_ENTRIES * ENTRY_BYTES;
+                MappedByteBuffer slice = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(SLICE_ENTRIES * ENTRY_BYTES, size - offset));
+                slices[i] = slice;
+            }
+            return new OpeningBook(slices, entryCount);
+        }
+    }
+
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * Gets the book moves for the team to move, highest weight first. Moves that are
+     * not legal here (which can only happen on a key collision) are left out.
+     *
+     * @return the moves, or an empty list if the position is not in the book
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        long key = game.positionKey();
+        List<BookMove> moves = new ArrayList<>();
+        for (long i = lowerBound(key); i < entryCount && keyAt(i) == key; i++) {
+            ChessMove move = Move.toChessMove(moveAt(i));
+            int weight = weightAt(i);
+            if (weight > 0 && isLegal(game, move)) {
+                moves.add(new BookMove(move, weight));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Picks one of the position's book moves at random, in proportion to the weights
+     *
+     * @return the move, or null if the position is not in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = lookup(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        int choice = random.nextInt(total);
+        for (BookMove move : moves) {
+            choice -= move.weight();
+            if (choice < 0) {
+                return move.move();
+            }
+        }
+        return null;
+    }
+
+    private long lowerBound(long key) {
+        long low = 0;
+        long high = entryCount;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(long index) {
+        return slice(index).getLong(offset(index));
+    }
+
+    private int moveAt(long index) {
+        return slice(index).getShort(offset(index) + 8) & 0xFFFF;
+    }
+
+    private int weightAt(long index) {
+        return slice(index).getShort(offset(index) + 10) & 0xFFFF;
+    }
+
+    private ByteBuffer slice(long index) {
+        return slices[(int) (index >>> SLICE_SHIFT)];
+    }
+
+    private static int offset(long index) {
+        return (int) (index & (SLICE_ENTRIES - 1)) * ENTRY_BYTES;
+    }
+
+    private static boolean isLegal(ChessGame game, ChessMove move) {
+        var valid = game.validMoves(move.getStartPosition());
+        return valid != null
+                && game.getBoard().getPiece(move.getStartPosition()).getTeamColor() == game.getTeamTurn()
+                && valid.contains(move);
+    }
+}
@@ -0,0 +1,88 @@
+package chess.endgame;
+
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Win/draw/loss for every position of one king-and-piece against king ending.
+ * <p>
+ * Positions are stored with white as the team that has the extra piece. The index
+ * is {@code ((sideToMove * 64 + whiteKing) * 64 + blackKing) * 64 + pieceSquare},
+ * with squares numbered as in {@link chess.ChessBoard} and white to move as 0. Each
+ * position takes 2 bits, four to a byte with the lowest index in the lowest bits,
+ * so a table is 128 KB.
+ */
+public final class Bitbase {
+
+    static final int POSITIONS = 2 * 64 * 64 * 64;
+    static final int BYTES = POSITIONS / 4;
+
+    // The 2-bit codes; ILLEGAL covers overlapping pieces, touching kings, a pawn on
+    // the first or last row and the side not to move being in check
+    static final byte ILLEGAL = 0;
+    static final byte DRAW = 1;
+    static final byte WIN = 2;
+    static final byte LOSS = 3;
+
+    private final ChessPiece.PieceType piece;
+    private final ByteBuffer packed;
+
+    Bitbase(ChessPiece.PieceType piece, ByteBuffer packed) {
+        if (packed.capacity() != BYTES) {
+            throw new IllegalArgumentException("A bitbase is " + BYTES + " bytes, got " + packed.capacity());
+        }
+        this.piece = piece;
+        this.packed = packed;
+    }
+
+    public ChessPiece.PieceType piece() {
+        return piece;
+    }
+
+    /**
+     * @return the result for the side to move, or null for an illegal position
+     */
+    public Wdl probe(boolean whiteToMove, int whiteKing, int blackKing, int pieceSquare) {
+        return switch (code(index(whiteToMove, whiteKing, blackKing, pieceSquare))) {
+            case WIN -> Wdl.WIN;
+            case DRAW -> Wdl.DRAW;
+            case LOSS -> Wdl.LOSS;
+            default -> null;
+        };
+    }
+
+    /**
+     * Writes the packed table, in the layout {@link Bitbases} maps back in
+     */
+    public void writeTo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer contents = packed.duplicate();
+            contents.clear();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+    }
+
+    int code(int index) {
+        return (packed.get(index >>> 2) >>> ((index & 3) * 2)) & 3;
+    }
+
+    static int index(boolean whiteToMove, int whiteKing, int blackKing, int pieceSquare) {
+        return (((whiteToMove ? 0 : 64) + whiteKing) * 64 + blackKing) * 64 + pieceSquare;
+    }
+
+    static byte[] pack(byte[] codes) {
+        byte[] packed = new byte[BYTES];
+        for (int index = 0; index < POSITIONS; index++) {
+            packed[index >>> 2] |= (byte) (codes[index] << ((index & 3) * 2));
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,200 @@
+package chess.endgame;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the {@link Bitbase} tables offline by retrograde analysis.
+ * <p>
+ * Every position is first marked illegal, checkmate (a loss), stalemate (a draw) or
+ * unknown. Each following pass resolves unknown positions from the last pass's
+ * results: a position is a win if some move leads to a loss for the opponent, and a
+ * loss if every move leads to a win for the opponent. Each pass reaches one ply
+ * further from mate, so when a pass changes nothing the remaining unknown positions
+ * can never be forced either way and are draws. Passes read the previous pass's
+ * array and write a new one, so positions are resolved in parallel with no locking.
+ * <p>
+ * A pawn that promotes leaves the table, so KPK needs the KQK and KRK tables first;
+ * promoting to a bishop or knight, or losing the piece, is always a draw.
+ * <p>
+ * Usage: {@code BitbaseGenerator [outputDirectory]}, writing kqk, krk and kpk.
+ */
+public class BitbaseGenerator {
+
+    // Only used while generating; never written to a file
+    private static final byte UNKNOWN = 4;
+
+    private static final ChessPiece WHITE_KING = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+    private static final ChessPiece BLACK_KING = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+
+    private final ChessPiece.PieceType piece;
+    private final Map<ChessPiece.PieceType, Bitbase> finished;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    /**
+     * @param piece    white's extra piece
+     * @param finished tables a promotion can lead into, which must already be complete
+     */
+    public BitbaseGenerator(ChessPiece.PieceType piece, Map<ChessPiece.PieceType, Bitbase> finished) {
+        this.piece = piece;
+        this.finished = finished;
+    }
+
+    /**
+     * Runs the analysis on the common fork-join pool
+     *
+     * @return the finished table
+     */
+    public Bitbase generate() {
+        byte[] codes = new byte[Bitbase.POSITIONS];
+        IntStream.range(0, Bitbase.POSITIONS).parallel().forEach(index -> codes[index] = classify(index));
+
+        long resolved;
+        do {
+            byte[] previous = codes.clone();
+            resolved = IntStream.range(0, Bitbase.POSITIONS).parallel()
+                    .filter(index -> previous[index] == UNKNOWN)
+                    .map(index -> {
+                        codes[index] = resolve(index, previous);
+                        return codes[index] == UNKNOWN ? 0 : 1;
+                    })
+                    .sum();
+        } while (resolved > 0);
+
+        for (int index = 0; index < codes.length; index++) {
+            if (codes[index] == UNKNOWN) {
+                codes[index] = Bitbase.DRAW;
+            }
+        }
+        return new Bitbase(piece, ByteBuffer.wrap(Bitbase.pack(codes)));
+    }
+
+    private byte classify(int index) {
+        Worker worker = workers.get();
+        if (!worker.setUp(piece, index)) {
+            return Bitbase.ILLEGAL;
+        }
+        ChessGame.TeamColor toMove = worker.game.getTeamTurn();
+        ChessBoard board = worker.game.getBoard();
+        if (board.isSquareAttacked(board.kingSquare(toMove.opponent()), toMove)) {
+            // The side that just moved left its king in check
+            return Bitbase.ILLEGAL;
+        }
+        worker.moves.clear();
+        worker.game.generateLegalMoves(toMove, worker.moves);
+        if (worker.moves.isEmpty()) {
+            return worker.game.isInCheck(toMove) ? Bitbase.LOSS : Bitbase.DRAW;
+        }
+        return UNKNOWN;
+    }
+
+    private byte resolve(int index, byte[] previous) {
+        Worker worker = workers.get();
+        worker.setUp(piece, index);
+        ChessGame game = worker.game;
+        worker.moves.clear();
+        game.generateLegalMoves(game.getTeamTurn(), worker.moves);
+        boolean allWin = true;
+        for (int i = 0; i < worker.moves.size(); i++) {
+            game.makeMove(worker.moves.get(i));
+            int child = childCode(game, previous);
+            game.unmakeMove();
+            if (child == Bitbase.LOSS) {
+                return Bitbase.WIN;
+            }
+            allWin &= child == Bitbase.WIN;
+        }
+        return allWin ? Bitbase.LOSS : UNKNOWN;
+    }
+
+    /**
+     * @return the code for the position after a move, from the new side to move's view
+     */
+    private int childCode(ChessGame game, byte[] previous) {
+        ChessBoard board = game.getBoard();
+        int whiteKing = board.kingSquare(ChessGame.TeamColor.WHITE);
+        int blackKing = board.kingSquare(ChessGame.TeamColor.BLACK);
+        long pieces = board.getOccupancy(ChessGame.TeamColor.WHITE) & ~(1L << whiteKing);
+        if (pieces == 0) {
+            return Bitbase.DRAW;
+        }
+        int square = Long.numberOfTrailingZeros(pieces);
+        boolean whiteToMove = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+        ChessPiece.PieceType type = board.getPiece(square).getPieceType();
+        if (type == piece) {
+            return previous[Bitbase.index(whiteToMove, whiteKing, blackKing, square)];
+        }
+        Bitbase promoted = finished.get(type);
+        if (promoted == null) {
+            return Bitbase.DRAW;
+        }
+        return promoted.code(Bitbase.index(whiteToMove, whiteKing, blackKing, square));
+    }
+
+    /**
+     * Reusable per-thread scratch space, so positions are set up without allocating
+     */
+    private static class Worker {
+        final ChessGame game = new ChessGame();
+        final ChessBoard board = new ChessBoard();
+        final MoveList moves = new MoveList();
+        final int[] occupied = new int[3];
+
+        Worker() {
+            game.setBoard(board);
+        }
+
+        /**
+         * Places the pieces for a table index on the board
+         *
+         * @return false if the squares overlap, the kings touch or a pawn is on an end row
+         */
+        boolean setUp(ChessPiece.PieceType piece, int index) {
+            for (int square : occupied) {
+                board.setPiece(square, null);
+            }
+            int pieceSquare = index & 63;
+            int blackKing = (index >>> 6) & 63;
+            int whiteKing = (index >>> 12) & 63;
+            boolean whiteToMove = (index >>> 18) == 0;
+            if (whiteKing == blackKing || pieceSquare == whiteKing || pieceSquare == blackKing
+                    || Math.abs((whiteKing >>> 3) - (blackKing >>> 3)) <= 1 && Math.abs((whiteKing & 7) - (blackKing & 7)) <= 1
+                    || piece == ChessPiece.PieceType.PAWN && (pieceSquare < 8 || pieceSquare >= 56)) {
+                return false;
+            }
+            board.setPiece(whiteKing, WHITE_KING);
+            board.setPiece(blackKing, BLACK_KING);
+            board.setPiece(pieceSquare, ChessPiece.of(ChessGame.TeamColor.WHITE, piece));
+            occupied[0] = whiteKing;
+            occupied[1] = blackKing;
+            occupied[2] = pieceSquare;
+            game.setTeamTurn(whiteToMove ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : ".");
+        Files.createDirectories(directory);
+        Map<ChessPiece.PieceType, Bitbase> finished = new EnumMap<>(ChessPiece.PieceType.class);
+        for (ChessPiece.PieceType piece : new ChessPiece.PieceType[]{
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.PAWN}) {
+            long start = System.nanoTime();
+            Bitbase table = new BitbaseGenerator(piece, finished).generate();
+            finished.put(piece, table);
+            Path file = directory.resolve(Bitbases.fileName(piece));
+            table.writeTo(file);
+            System.out.printf("%s: %d ms%n", file, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
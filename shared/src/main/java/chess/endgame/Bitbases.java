@@ -0,0 +1,120 @@
+package chess.endgame;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Answers exact win/draw/loss questions for king and queen, rook or pawn against a
+ * lone king, from tables written by {@link BitbaseGenerator}.
+ * <p>
+ * A table file is memory-mapped the first time a position needs it, so tables that
+ * are never asked about cost nothing. King against king, and king and bishop or
+ * knight against king, are always draws and need no table.
+ */
+public class Bitbases {
+
+    private final Path directory;
+    // Indexed by PieceType ordinal, filled in as tables are first needed
+    private final AtomicReferenceArray<Bitbase> loaded = new AtomicReferenceArray<>(ChessPiece.PieceType.values().length);
+
+    /**
+     * @param directory where the table files are; missing files just mean those
+     *                  endings are not covered
+     */
+    public Bitbases(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Looks up the result for the team whose turn it is
+     *
+     * @return the result, or null if the position is not one of the covered endings
+     */
+    public Wdl probe(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupancy();
+        int count = Long.bitCount(occupied);
+        int whiteKing = board.kingSquare(ChessGame.TeamColor.WHITE);
+        int blackKing = board.kingSquare(ChessGame.TeamColor.BLACK);
+        if (count < 2 || count > 3 || whiteKing == 64 || blackKing == 64) {
+            return null;
+        }
+        if (count == 2) {
+            return Wdl.DRAW;
+        }
+        int pieceSquare = Long.numberOfTrailingZeros(occupied & ~(1L << whiteKing) & ~(1L << blackKing));
+        ChessPiece piece = board.getPiece(pieceSquare);
+        ChessPiece.PieceType type = piece.getPieceType();
+        if (type == ChessPiece.PieceType.BISHOP || type == ChessPiece.PieceType.KNIGHT) {
+            return Wdl.DRAW;
+        }
+        Bitbase table = table(type);
+        if (table == null) {
+            return null;
+        }
+        boolean whiteToMove = game.getTeamTurn() == ChessGame.TeamColor.WHITE;
+        if (piece.getTeamColor() == ChessGame.TeamColor.WHITE) {
+            return table.probe(whiteToMove, whiteKing, blackKing, pieceSquare);
+        }
+        // Tables have white as the stronger side, so flip the board top to bottom and swap colors
+        return table.probe(!whiteToMove, blackKing ^ 56, whiteKing ^ 56, pieceSquare ^ 56);
+    }
+
+    /**
+     * @return the table for king and the given piece against king, or null if there is no file for it
+     */
+    public Bitbase table(ChessPiece.PieceType piece) {
+        Bitbase table = loaded.get(piece.ordinal());
+        if (table != null) {
+            return table;
+        }
+        synchronized (this) {
+            table = loaded.get(piece.ordinal());
+            if (table == null) {
+                Path file = directory.resolve(fileName(piece));
+                if (!Files.exists(file)) {
+                    return null;
+                }
+                try {
+                    table = map(piece, file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to map bitbase " + file, e);
+                }
+                loaded.set(piece.ordinal(), table);
+            }
+            return table;
+        }
+    }
+
+    static Bitbase map(ChessPiece.PieceType piece, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Bitbase(piece, buffer);
+        }
+    }
+
+    /**
+     * @return the file name for a table, such as "kqk.bitbase"
+     */
+    public static String fileName(ChessPiece.PieceType piece) {
+        char letter = switch (piece) {
+            case QUEEN -> 'q';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case KING -> 'k';
+        };
+        return "k" + letter + "k.bitbase";
+    }
+}
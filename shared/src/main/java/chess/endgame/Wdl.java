@@ -0,0 +1,22 @@
+package chess.endgame;
+
+/**
+ * The game-theoretic result of a position for the team whose turn it is, with best
+ * play from both sides
+ */
+public enum Wdl {
+    WIN,
+    DRAW,
+    LOSS;
+
+    /**
+     * @return the same result from the other team's side
+     */
+    public Wdl flip() {
+        return switch (this) {
+            case WIN -> LOSS;
+            case DRAW -> DRAW;
+            case LOSS -> WIN;
+        };
+    }
+}
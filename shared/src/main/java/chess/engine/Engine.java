@@ -0,0 +1,201 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Picks moves for a computer player or a hint, within a time budget.
+ * <p>
+ * Searches one ply deeper at a time, so whenever the budget runs out there is a
+ * finished answer from the last depth. The deadline is checked inside the search as
+ * well, and a new depth is not started once half the budget is gone, since it would
+ * almost certainly not finish.
+ * <p>
+ * An engine keeps its transposition table between searches, so one engine per bot
+ * or per server gets faster as it sees related positions. Searches may run
+ * concurrently on the same engine.
+ * <p>
+ * With more than one thread the engine uses Lazy SMP: helper threads search the same
+ * root independently, half of them a ply deeper, and share everything they learn
+ * through the transposition table, which lets the main thread cut off sooner. The
+ * answer always comes from the main thread. Helpers come from a pool sized to the
+ * machine and shared by every engine in the JVM, so when the server is busy a search
+ * gets fewer helpers, down to none, instead of oversubscribing the cores.
+ */
+public class Engine {
+
+    public static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    private static final int HELPER_LIMIT = Math.max(0, Runtime.getRuntime().availableProcessors() - 1);
+    private static final Semaphore HELPER_PERMITS = new Semaphore(HELPER_LIMIT);
+    private static final ExecutorService HELPERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "engine-helper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxDepth;
+    private final TranspositionTable table;
+    private final int threads;
+
+    public Engine() {
+        this(Search.MAX_PLY / 2);
+    }
+
+    /**
+     * @param maxDepth the deepest iteration to run, however much time is left
+     */
+    public Engine(int maxDepth) {
+        this(maxDepth, new TranspositionTable(DEFAULT_HASH_MEGABYTES), 1);
+    }
+
+    /**
+     * @param maxDepth the deepest iteration to run, however much time is left
+     * @param table    the transposition table to use, which may be shared with other engines
+     */
+    public Engine(int maxDepth, TranspositionTable table) {
+        this(maxDepth, table, 1);
+    }
+
+    /**
+     * @param maxDepth the deepest iteration to run, however much time is left
+     * @param table    the transposition table to use, which may be shared with other engines
+     * @param threads  the most threads one search may use, including the caller's
+     */
+    public Engine(int maxDepth, TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("An engine needs at least 1 thread, got " + threads);
+        }
+        this.maxDepth = maxDepth;
+        this.table = table;
+        this.threads = threads;
+    }
+
+    /**
+     * @return the move the engine would play for the team whose turn it is, or null
+     * if that team has no legal moves
+     */
+    public ChessMove bestMove(ChessGame game, Duration timeBudget) {
+        return search(game, timeBudget).bestMove();
+    }
+
+    /**
+     * Searches the position for the team whose turn it is. The game passed in is not
+     * modified.
+     */
+    public SearchResult search(ChessGame game, Duration timeBudget) {
+        long start = System.nanoTime();
+        long budget = timeBudget.toNanos();
+        long deadline = start + budget;
+        table.newSearch();
+        AtomicBoolean abort = new AtomicBoolean();
+
+        int helperCount = acquireHelpers();
+        List<Search> helpers = new ArrayList<>(helperCount);
+        List<Future<?>> running = new ArrayList<>(helperCount);
+        for (int i = 0; i < helperCount; i++) {
+            Search helper = new Search(game.copy(), deadline, table, abort);
+            int firstDepth = 1 + (i % 2);
+            helpers.add(helper);
+            running.add(HELPERS.submit(() -> runHelper(helper, firstDepth)));
+        }
+
+        Search search = new Search(game.copy(), deadline, table, abort);
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        try {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                boolean found = search.searchRoot(depth, bestMove);
+                if (found) {
+                    bestMove = search.rootBestMove();
+                    bestScore = search.rootBestScore();
+                }
+                if (search.stopped()) {
+                    break;
+                }
+                if (!found) {
+                    // No legal moves at the root
+                    break;
+                }
+                completedDepth = depth;
+                if (Math.abs(bestScore) >= Search.MATE - Search.MAX_PLY || System.nanoTime() - start > budget / 2) {
+                    break;
+                }
+            }
+        } finally {
+            abort.set(true);
+            awaitHelpers(running);
+            HELPER_PERMITS.release(helperCount);
+        }
+
+        if (bestMove == Move.NONE) {
+            // Out of time before depth 1 finished; any legal move is better than none
+            MoveList moves = new MoveList();
+            game.generateLegalMoves(game.getTeamTurn(), moves);
+            if (!moves.isEmpty()) {
+                bestMove = moves.get(0);
+            }
+        }
+        long nodes = search.nodes();
+        for (Search helper : helpers) {
+            nodes += helper.nodes();
+        }
+        ChessMove move = bestMove == Move.NONE ? null : Move.toChessMove(bestMove);
+        return new SearchResult(move, bestScore, completedDepth, nodes);
+    }
+
+    /**
+     * Takes as many helper permits as this engine wants and the JVM has free, without waiting
+     */
+    private int acquireHelpers() {
+        for (int wanted = Math.min(threads - 1, HELPER_LIMIT); wanted > 0; wanted--) {
+            if (HELPER_PERMITS.tryAcquire(wanted)) {
+                return wanted;
+            }
+        }
+        return 0;
+    }
+
+    private void runHelper(Search helper, int firstDepth) {
+        int previousBest = Move.NONE;
+        for (int depth = firstDepth; depth <= maxDepth && !helper.stopped(); depth++) {
+            if (!helper.searchRoot(depth, previousBest)) {
+                return;
+            }
+            previousBest = helper.rootBestMove();
+        }
+    }
+
+    private static void awaitHelpers(List<Future<?>> running) {
+        boolean interrupted = false;
+        for (Future<?> helper : running) {
+            while (true) {
+                try {
+                    helper.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // A failed helper only costs speed; the main search has the answer
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
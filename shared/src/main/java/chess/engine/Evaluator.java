@@ -0,0 +1,32 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position in centipawns, from the point of view of the team
+ * whose turn it is.
+ * <p>
+ * The board keeps its {@link PieceSquareTables} totals up to date as pieces move, so
+ * this is a read and a blend between middlegame and endgame rather than a scan.
+ */
+public final class Evaluator {
+
+    // Rough piece values for ordering captures, indexed by PieceType ordinal: king, queen, bishop, knight, rook, pawn
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    private Evaluator() {
+    }
+
+    public static int evaluate(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int score = PieceSquareTables.taper(board.getMiddlegameScore(), board.getEndgameScore(), board.getPhase());
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    static int value(ChessPiece.PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+}
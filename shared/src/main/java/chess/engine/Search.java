@@ -0,0 +1,350 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One thread's negamax alpha-beta search over its own copy of a game.
+ * <p>
+ * Moves are tried best-first: the previous iteration's best move, then captures by
+ * most valuable victim and least valuable attacker, then the two killer moves that
+ * last caused a cutoff at the same ply, then quiet moves by history score. Leaves go
+ * into a quiescence search over captures and promotions so the evaluation is never
+ * taken in the middle of an exchange.
+ * <p>
+ * Results are shared through a {@link TranspositionTable}: a stored score that is
+ * deep enough ends the node at once, and a stored best move is tried first.
+ */
+class Search {
+
+    static final int INFINITY = 1_000_000;
+    static final int MATE = 100_000;
+    static final int MAX_PLY = 128;
+
+    // How many nodes to search between looks at the clock
+    private static final int CHECK_INTERVAL = 2048;
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+
+    private final ChessGame game;
+    private final ChessBoard board;
+    private final long deadline;
+    private final TranspositionTable table;
+    // Raised by whoever ends a multi-threaded search, so helpers stop with it
+    private final AtomicBoolean abort;
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // Indexed by team ordinal, from square and to square
+    private final int[][][] history = new int[2][64][64];
+
+    private long nodes;
+    private boolean stopped;
+    private int rootBestMove = Move.NONE;
+    private int rootBestScore;
+
+    /**
+     * @param game     the position to search, which this search will move pieces on
+     * @param deadline the System.nanoTime() after which to abandon the search
+     * @param table    the table to share results through
+     * @param abort    a flag another thread can set to stop this search early
+     */
+    Search(ChessGame game, long deadline, TranspositionTable table, AtomicBoolean abort) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.deadline = deadline;
+        this.table = table;
+        this.abort = abort;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            moveScores[ply] = new int[256];
+        }
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    boolean stopped() {
+        return stopped;
+    }
+
+    int rootBestMove() {
+        return rootBestMove;
+    }
+
+    int rootBestScore() {
+        return rootBestScore;
+    }
+
+    /**
+     * Searches the root to a fixed depth, keeping the best move found so far even if
+     * the deadline cuts the iteration short
+     *
+     * @param previousBest the best move from the last iteration, searched first
+     * @return false if the deadline passed before any root move was finished
+     */
+    boolean searchRoot(int depth, int previousBest) {
+        MoveList moves = moveLists[0];
+        moves.clear();
+        game.generateLegalMoves(game.getTeamTurn(), moves);
+        if (previousBest == Move.NONE) {
+            previousBest = TranspositionTable.move(table.probe(game.positionKey()));
+        }
+        scoreMoves(moves, moveScores[0], 0, previousBest);
+
+        int alpha = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, moveScores[0], i);
+            game.makeMove(move);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+            game.unmakeMove();
+            if (stopped) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+        if (bestMove == Move.NONE) {
+            return false;
+        }
+        rootBestMove = bestMove;
+        rootBestScore = alpha;
+        if (!stopped) {
+            table.store(game.positionKey(), bestMove, toTable(alpha, 0), depth, TranspositionTable.EXACT);
+        }
+        return true;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (checkStop()) {
+            return 0;
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            // Look one ply further at checks so forced lines are not cut off at the horizon
+            depth++;
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(ply, alpha, beta);
+        }
+
+        long key = game.positionKey();
+        long entry = table.probe(key);
+        int hashMove = TranspositionTable.move(entry);
+        if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                    || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                return score;
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.generateLegalMoves(game.getTeamTurn(), moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, moveScores[ply], ply, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, moveScores[ply], i);
+            game.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        if (isQuiet(move)) {
+                            rememberCutoff(move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT
+                : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    private int quiesce(int ply, int alpha, int beta) {
+        if (checkStop()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(game);
+        }
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.generateLegalMoves(game.getTeamTurn(), moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int best;
+        if (inCheck) {
+            // No standing pat while in check: every evasion has to be looked at
+            best = -INFINITY;
+        } else {
+            best = Evaluator.evaluate(game);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+            int kept = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                if (!isQuiet(moves.get(i))) {
+                    moves.set(kept++, moves.get(i));
+                }
+            }
+            if (kept == 0) {
+                return best;
+            }
+            moves.truncate(kept);
+        }
+        scoreMoves(moves, moveScores[ply], ply, Move.NONE);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, moveScores[ply], i);
+            game.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Mate scores count plies from the root, but a table entry can be reached at any
+     * ply, so they are stored as distance from the entry's own position instead
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private boolean checkStop() {
+        if ((++nodes % CHECK_INTERVAL) == 0 && (abort.get() || System.nanoTime() - deadline > 0)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private void scoreMoves(MoveList moves, int[] scores, int ply, int hashMove) {
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (!isQuiet(move)) {
+                score = CAPTURE_SCORE;
+                if (Move.isCapture(move)) {
+                    score += 16 * Evaluator.value(board.getPiece(Move.to(move)).getPieceType());
+                }
+                if (Move.promotion(move) != null) {
+                    score += Evaluator.value(Move.promotion(move));
+                }
+                score -= attackerOrder(board.getPiece(Move.from(move)).getPieceType());
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = history[game.getTeamTurn().ordinal()][Move.from(move)][Move.to(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best-scored remaining move into slot i and returns it. A full sort
+     * would mostly be wasted, since a cutoff usually comes from one of the first moves.
+     */
+    private static int pickNext(MoveList moves, int[] scores, int i) {
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = moves.get(best);
+            moves.set(best, moves.get(i));
+            moves.set(i, move);
+            int score = scores[best];
+            scores[best] = scores[i];
+            scores[i] = score;
+        }
+        return moves.get(i);
+    }
+
+    private void rememberCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[game.getTeamTurn().ordinal()][Move.from(move)];
+        fromHistory[Move.to(move)] = Math.min(fromHistory[Move.to(move)] + depth * depth, KILLER_SCORE - 1);
+    }
+
+    private static boolean isQuiet(int move) {
+        return !Move.isCapture(move) && Move.promotion(move) == null;
+    }
+
+    // Cheaper attackers sort first among captures of the same victim
+    private static int attackerOrder(ChessPiece.PieceType type) {
+        return type == ChessPiece.PieceType.KING ? 0 : Evaluator.value(type) / 100;
+    }
+}
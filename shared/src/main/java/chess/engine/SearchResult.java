@@ -0,0 +1,18 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search
+ *
+ * @param bestMove the move to play, or null if the team to move has none
+ * @param score    centipawns for the team to move; mates are near {@link Search#MATE}
+ * @param depth    the deepest iteration that finished
+ * @param nodes    positions visited, including quiescence
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes) {
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+}
@@ -0,0 +1,130 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results, keyed by {@link chess.ChessGame#positionKey()},
+ * that several search threads can read and write at once without locking.
+ * <p>
+ * Each entry is two longs in one flat array: the packed data, and the position key
+ * XORed with that data. A probe recomputes the key from the pair, so an entry
+ * half-written by another thread, or one belonging to a different position, simply
+ * fails to match and counts as a miss. Memory is allocated once up front and never
+ * grows.
+ * <p>
+ * The data packs the best move into bits 0-15, the depth into 16-23, the bound type
+ * into 24-25, the search generation into 26-31 and the score into the top 32 bits.
+ * A slot is overwritten by a search at least as deep, or by anything once the entry
+ * is left over from an earlier search.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    // The score is at least this much: the search failed high
+    public static final int LOWER_BOUND = 2;
+    // The score is at most this much: no move beat alpha
+    public static final int UPPER_BOUND = 3;
+
+    public static final long MISS = 0;
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final int GENERATION_MASK = 63;
+
+    private final long[] table;
+    private final int indexMask;
+    private int generation;
+
+    /**
+     * @param megabytes the most memory to use; the entry count is rounded down to a
+     *                  power of two
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB, got " + megabytes);
+        }
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        // Keeps the slot index, two longs per entry, within an int
+        entries = Math.min(entries, 1L << 29);
+        table = new long[(int) entries * 2];
+        indexMask = (int) entries - 1;
+    }
+
+    /**
+     * @return the packed data stored for this position, or {@link #MISS}
+     */
+    public long probe(long key) {
+        int slot = slot(key);
+        long data = table[slot + 1];
+        if (data != MISS && (table[slot] ^ data) == key) {
+            return data;
+        }
+        return MISS;
+    }
+
+    /**
+     * Records a search result, unless the slot holds a deeper result from this search
+     *
+     * @param move  the best move found, or {@link chess.Move#NONE}
+     * @param score the score, with mate scores already made relative to this position
+     * @param depth the remaining depth the score was searched to
+     * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int slot = slot(key);
+        long old = table[slot + 1];
+        boolean sameKey = old != MISS && (table[slot] ^ old) == key;
+        if (old != MISS && generation(old) == generation && depth < depth(old) && !sameKey) {
+            return;
+        }
+        if (sameKey && move == 0) {
+            // Keep the move we already knew about for this position
+            move = move(old);
+        }
+        long data = (move & 0xFFFFL)
+                | ((long) Math.min(Math.max(depth, 0), 255) << 16)
+                | ((long) bound << 24)
+                | ((long) generation << 26)
+                | ((long) score << 32);
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    /**
+     * Marks entries from earlier searches as replaceable. Call once before each new search.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    public int capacity() {
+        return indexMask + 1;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 16) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 24) & 3);
+    }
+
+    public static int score(long data) {
+        return (int) (data >> 32);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 26) & GENERATION_MASK);
+    }
+
+    private int slot(long key) {
+        return ((int) key & indexMask) << 1;
+    }
+}
@@ -0,0 +1,167 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks the legal move tree on a {@link ForkJoinPool}, for perft counts and for
+ * visiting every position up to a depth.
+ * <p>
+ * The first few plies are split into one task per move so idle workers can steal
+ * subtrees; below that each task walks its subtree alone with make/unmake. Every
+ * task that is forked works on its own {@link ChessGame#copy()}, since a game's
+ * board and undo stack are not thread-safe.
+ */
+public class ParallelPerft {
+
+    /**
+     * Called for every position reached by {@link #walk}, from whichever worker
+     * thread got there, so it must be thread-safe. The game is only valid for the
+     * duration of the call.
+     */
+    @FunctionalInterface
+    public interface PositionVisitor {
+        void visit(ChessGame game, int ply);
+    }
+
+    // Enough root and second-ply tasks to keep a desktop's cores busy on typical positions
+    public static final int DEFAULT_SPLIT_PLIES = 2;
+
+    private final ForkJoinPool pool;
+    private final int splitPlies;
+
+    public ParallelPerft() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_PLIES);
+    }
+
+    /**
+     * @param pool       the pool to run on
+     * @param splitPlies how many plies below the root are split into separate tasks
+     */
+    public ParallelPerft(ForkJoinPool pool, int splitPlies) {
+        this.pool = pool;
+        this.splitPlies = splitPlies;
+    }
+
+    /**
+     * Same count as {@link ChessGame#perft(int)}, spread across the pool. The game
+     * passed in is not modified.
+     */
+    public long perft(ChessGame game, int depth) {
+        return pool.invoke(new WalkTask(game.copy(), depth, 0, splitPlies, null));
+    }
+
+    /**
+     * Visits every position from the root down to the given depth, including the
+     * root itself
+     *
+     * @return the number of leaf positions, as {@link #perft} would count them
+     */
+    public long walk(ChessGame game, int depth, PositionVisitor visitor) {
+        return pool.invoke(new WalkTask(game.copy(), depth, 0, splitPlies, visitor));
+    }
+
+    private static class WalkTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks only ever run in this JVM, so the game and visitor are never serialized
+        private final transient ChessGame game;
+        private final int depth;
+        private final int ply;
+        private final int splitPlies;
+        private final transient PositionVisitor visitor;
+
+        WalkTask(ChessGame game, int depth, int ply, int splitPlies, PositionVisitor visitor) {
+            this.game = game;
+            this.depth = depth;
+            this.ply = ply;
+            this.splitPlies = splitPlies;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected Long compute() {
+            if (splitPlies == 0 || depth <= 1) {
+                return visitor == null ? game.perft(depth) : walkSerial(game, depth, ply, visitor);
+            }
+            if (visitor != null) {
+                visitor.visit(game, ply);
+            }
+            MoveList moves = new MoveList();
+            game.generateLegalMoves(game.getTeamTurn(), moves);
+            List<WalkTask> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                ChessGame child = game.copy();
+                child.makeMove(moves.get(i));
+                children.add(new WalkTask(child, depth - 1, ply + 1, splitPlies - 1, visitor));
+            }
+            long nodes = 0;
+            for (WalkTask task : invokeAll(children)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    private static long walkSerial(ChessGame game, int depth, int ply, PositionVisitor visitor) {
+        visitor.visit(game, ply);
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(game.getTeamTurn(), moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += walkSerial(game, depth - 1, ply + 1, visitor);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Prints how perft on one suite position scales from 1 thread up to the number
+     * of available processors.
+     * <p>
+     * Usage: {@code ParallelPerft [position] [depth]}, defaulting to kiwipete at depth 4.
+     */
+    public static void main(String[] args) {
+        String name = args.length > 0 ? args[0] : "kiwipete";
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        PerftSuite.PerftPosition position = PerftSuite.POSITIONS.stream()
+                .filter(p -> p.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown position " + name));
+        ChessGame game = position.createGame();
+
+        // Warm up so the single-threaded baseline is not measured on cold code
+        game.perft(Math.min(depth, 3));
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        double baseline = 0;
+        System.out.printf("%s depth %d%n", name, depth);
+        System.out.printf("%8s %14s %10s %14s %8s %10s%n", "threads", "nodes", "ms", "nps", "speedup", "efficiency");
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ParallelPerft perft = new ParallelPerft(pool, DEFAULT_SPLIT_PLIES);
+                long start = System.nanoTime();
+                long nodes = perft.perft(game, depth);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                if (threads == 1) {
+                    baseline = seconds;
+                }
+                double speedup = baseline / seconds;
+                System.out.printf("%8d %,14d %10.0f %,14.0f %8.2f %9.0f%%%n",
+                        threads, nodes, seconds * 1000, nodes / seconds, speedup, 100 * speedup / threads);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package chess.perft;
+
+import chess.ChessGame;
+
+/**
+ * Runs the {@link PerftSuite} and reports whether each count matches, along with
+ * nodes per second single-threaded and split across cores. See {@link ParallelPerft}
+ * for how the parallel count scales with the number of threads.
+ * <p>
+ * Usage: {@code PerftRunner [maxDepth]}. Without a depth every position runs to the
+ * deepest count the suite knows.
+ */
+public class PerftRunner {
+
+    public static void main(String[] args) {
+        int depthLimit = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+        boolean allPassed = true;
+        for (PerftSuite.PerftPosition position : PerftSuite.POSITIONS) {
+            System.out.println(position.name());
+            for (int depth = 1; depth <= Math.min(depthLimit, position.maxDepth()); depth++) {
+                long expected = position.expected()[depth - 1];
+
+                ChessGame game = position.createGame();
+                long start = System.nanoTime();
+                long nodes = game.perft(depth);
+                long singleNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                long parallelNodes = parallelPerft(position.createGame(), depth);
+                long parallelNanos = System.nanoTime() - start;
+
+                boolean passed = nodes == expected && parallelNodes == expected;
+                allPassed &= passed;
+                System.out.printf("  depth %d: %,d nodes (expected %,d) %s | 1 thread %,d nps | parallel %,d nps%n",
+                        depth, nodes, expected, passed ? "OK" : "FAIL",
+                        nodesPerSecond(nodes, singleNanos), nodesPerSecond(parallelNodes, parallelNanos));
+            }
+        }
+        System.out.println(allPassed ? "All counts match" : "Some counts did not match");
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs perft split across the common fork-join pool
+     */
+    public static long parallelPerft(ChessGame game, int depth) {
+        return new ParallelPerft().perft(game, depth);
+    }
+
+    private static long nodesPerSecond(long nodes, long nanos) {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
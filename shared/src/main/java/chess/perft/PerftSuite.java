@@ -0,0 +1,49 @@
+package chess.perft;
+
+import chess.ChessGame;
+
+import java.util.List;
+
+/**
+ * Well-known perft test positions with their node counts under this project's rules.
+ * <p>
+ * The positions are the usual ones from the chess programming community, written as
+ * their published FEN. This rule set has no castling or en passant, so where those
+ * moves would appear the expected totals are this project's own, checked against the
+ * original trial-move implementation of {@link ChessGame#validMoves}; position 6 has
+ * neither within the depths listed, so its totals are the published ones.
+ */
+public final class PerftSuite {
+
+    /**
+     * A test position and its expected perft counts, where expected[0] is depth 1
+     */
+    public record PerftPosition(String name, String fen, long[] expected) {
+
+        public int maxDepth() {
+            return expected.length;
+        }
+
+        public ChessGame createGame() {
+            return ChessGame.fromFen(fen);
+        }
+    }
+
+    public static final List<PerftPosition> POSITIONS = List.of(
+            new PerftPosition("start", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                    new long[]{20, 400, 8_902, 197_281, 4_865_351, 119_048_441}),
+            new PerftPosition("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    new long[]{46, 1_865, 86_585, 3_499_358, 161_395_653}),
+            new PerftPosition("position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    new long[]{14, 191, 2_810, 43_087, 671_300, 10_946_896}),
+            new PerftPosition("position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    new long[]{6, 258, 9_217, 404_404, 15_087_520}),
+            new PerftPosition("position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    new long[]{43, 1_452, 59_922, 2_018_609, 85_140_609}),
+            new PerftPosition("position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    new long[]{46, 2_079, 89_890, 3_894_594})
+    );
+
+    private PerftSuite() {
+    }
+}
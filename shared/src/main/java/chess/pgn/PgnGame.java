@@ -0,0 +1,54 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game as read by {@link PgnReader}: its tag pairs, its main-line moves in SAN,
+ * and how it ended
+ *
+ * @param tags   tag names to values, in the order they appeared
+ * @param moves  main-line moves, without move numbers, comments or variations
+ * @param result "1-0", "0-1", "1/2-1/2" or "*" when unknown
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return true if the result says someone won or the game was drawn
+     */
+    public boolean isFinished() {
+        return !result.equals("*");
+    }
+
+    /**
+     * Plays every move with {@link ChessGame#makeMove(chess.ChessMove)}, starting from
+     * the FEN tag if there is one
+     *
+     * @return the game after its last move
+     * @throws InvalidMoveException if the starting position or any move cannot be played
+     */
+    public ChessGame replay() throws InvalidMoveException {
+        ChessGame game;
+        String fen = tags.get("FEN");
+        if (fen == null) {
+            game = new ChessGame();
+        } else {
+            try {
+                game = ChessGame.fromFen(fen);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidMoveException(e.getMessage());
+            }
+        }
+        for (String san : moves) {
+            game.makeMove(SanParser.parse(game, san));
+        }
+        return game;
+    }
+}
@@ -0,0 +1,168 @@
+package chess.pgn;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads games one at a time from a PGN stream, a line at a time, so only the game
+ * being read is ever held in memory no matter how large the file is.
+ * <p>
+ * Tag pairs are collected into a map and the movetext is cut into main-line SAN moves;
+ * move numbers, annotation glyphs, comments, variations and escape lines are skipped.
+ * A game ends at its result token, at the next game's tags if the result is missing,
+ * or at the end of the stream. Moves are not checked here; see {@link PgnGame#replay()}.
+ */
+public class PgnReader implements Closeable {
+
+    private final BufferedReader reader;
+    // The line being tokenized and how far into it we are, kept between games
+    private String line;
+    private int position;
+    private int commentDepth;
+    private int variationDepth;
+
+    public PgnReader(Reader pgn) {
+        reader = pgn instanceof BufferedReader buffered ? buffered : new BufferedReader(pgn);
+    }
+
+    /**
+     * @return the next game, or null at the end of the stream
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        while (true) {
+            if (line == null || position >= line.length()) {
+                line = reader.readLine();
+                if (line == null) {
+                    return tags.isEmpty() && moves.isEmpty() ? null : finish(tags, moves, null);
+                }
+                line = line.strip();
+                position = 0;
+                continue;
+            }
+            if (position == 0 && commentDepth == 0 && variationDepth == 0) {
+                if (line.startsWith("[")) {
+                    if (!moves.isEmpty()) {
+                        // The last game had no result token; this line starts the next one
+                        return finish(tags, moves, null);
+                    }
+                    readTag(line, tags);
+                    position = line.length();
+                    continue;
+                }
+                if (line.startsWith("%")) {
+                    position = line.length();
+                    continue;
+                }
+            }
+
+            char c = line.charAt(position);
+            if (commentDepth > 0) {
+                if (c == '}') {
+                    commentDepth = 0;
+                }
+                position++;
+            } else if (c == '{') {
+                commentDepth = 1;
+                position++;
+            } else if (c == ';') {
+                position = line.length();
+            } else if (c == '(') {
+                variationDepth++;
+                position++;
+            } else if (c == ')') {
+                variationDepth = Math.max(0, variationDepth - 1);
+                position++;
+            } else if (Character.isWhitespace(c)) {
+                position++;
+            } else {
+                int start = position;
+                int end = start;
+                while (end < line.length() && " \t{}();".indexOf(line.charAt(end)) < 0) {
+                    end++;
+                }
+                position = end;
+                if (variationDepth > 0) {
+                    continue;
+                }
+                if (isResult(line, start, end)) {
+                    return finish(tags, moves, line.substring(start, end));
+                }
+                String move = moveText(line, start, end);
+                if (move != null) {
+                    moves.add(move);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * @return the game, with the result token if there was one and otherwise the Result tag
+     */
+    private PgnGame finish(Map<String, String> tags, List<String> moves, String result) {
+        if (result == null) {
+            result = tags.getOrDefault("Result", "*");
+            if (!isResult(result, 0, result.length())) {
+                result = "*";
+            }
+        }
+        commentDepth = 0;
+        variationDepth = 0;
+        return new PgnGame(tags, moves, result);
+    }
+
+    /**
+     * @return the move in a movetext token, or null for a bare move number or glyph
+     */
+    private static String moveText(String line, int start, int end) {
+        // Move numbers ("12." or "12...") and annotation glyphs ("$1") carry no move
+        if (line.charAt(start) == '$') {
+            return null;
+        }
+        if (Character.isDigit(line.charAt(start))) {
+            int i = start;
+            while (i < end && Character.isDigit(line.charAt(i))) {
+                i++;
+            }
+            while (i < end && line.charAt(i) == '.') {
+                i++;
+            }
+            if (i == end) {
+                return null;
+            }
+            start = i;
+        }
+        return line.substring(start, end);
+    }
+
+    private static void readTag(String line, Map<String, String> tags) {
+        int nameEnd = 1;
+        while (nameEnd < line.length() && !Character.isWhitespace(line.charAt(nameEnd)) && line.charAt(nameEnd) != '"') {
+            nameEnd++;
+        }
+        int open = line.indexOf('"', nameEnd);
+        int close = line.lastIndexOf('"');
+        if (nameEnd > 1 && open >= 0 && close > open) {
+            tags.put(line.substring(1, nameEnd), line.substring(open + 1, close).replace("\\\"", "\"").replace("\\\\", "\\"));
+        }
+    }
+
+    private static boolean isResult(String text, int start, int end) {
+        int length = end - start;
+        return length == 3 && (text.startsWith("1-0", start) || text.startsWith("0-1", start))
+                || length == 7 && text.startsWith("1/2-1/2", start)
+                || length == 1 && text.charAt(start) == '*';
+    }
+}
@@ -0,0 +1,199 @@
+package chess.pgn;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.InvalidMoveException;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * Reads moves in Standard Algebraic Notation ("e4", "Nbd7", "exd5", "e8=Q+") and
+ * writes them back out, against the position in a {@link ChessGame}.
+ * <p>
+ * Castling and en passant are not moves in this rule set, so SAN for them (and
+ * anything else that does not match exactly one legal move) is rejected with an
+ * {@link InvalidMoveException}.
+ */
+public final class SanParser {
+
+    private SanParser() {
+    }
+
+    /**
+     * Finds the legal move for the team to move that the SAN describes
+     *
+     * @param game the position the move is played from
+     * @param san  the move text; check marks and annotations such as "+", "#" and "!?" are ignored
+     * @return the matching move
+     * @throws InvalidMoveException if no legal move, or more than one, matches
+     */
+    public static ChessMove parse(ChessGame game, CharSequence san) throws InvalidMoveException {
+        return Move.toChessMove(parseMove(game, san));
+    }
+
+    /**
+     * Same as {@link #parse} but returns the {@link Move}-encoded move
+     */
+    public static int parseMove(ChessGame game, CharSequence san) throws InvalidMoveException {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end > 0 && (san.charAt(0) == 'O' || san.charAt(0) == '0')) {
+            throw new InvalidMoveException("Castling is not supported: " + san);
+        }
+
+        ChessPiece.PieceType promotion = null;
+        if (end >= 2 && pieceType(san.charAt(end - 1)) != null && san.charAt(end - 1) != 'K') {
+            promotion = pieceType(san.charAt(end - 1));
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end < 2) {
+            throw new InvalidMoveException("Not a move: " + san);
+        }
+        int toCol = san.charAt(end - 2) - 'a';
+        int toRow = san.charAt(end - 1) - '1';
+        if (toCol < 0 || toCol > 7 || toRow < 0 || toRow > 7) {
+            throw new InvalidMoveException("Not a move: " + san);
+        }
+
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (Character.isUpperCase(san.charAt(0))) {
+            type = pieceType(san.charAt(0));
+            if (type == null) {
+                throw new InvalidMoveException("Unknown piece in " + san);
+            }
+            start = 1;
+        }
+        // Whatever is left before the destination is disambiguation and an optional 'x'
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromCol = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = c - '1';
+            } else if (c != 'x' && c != '-' && c != ':') {
+                throw new InvalidMoveException("Not a move: " + san);
+            }
+        }
+
+        ChessBoard board = game.getBoard();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(game.getTeamTurn(), moves);
+        int to = toRow * 8 + toCol;
+        int found = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            if (Move.to(move) != to
+                    || board.getPiece(from).getPieceType() != type
+                    || Move.promotion(move) != promotion
+                    || (fromCol >= 0 && (from & 7) != fromCol)
+                    || (fromRow >= 0 && (from >>> 3) != fromRow)) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                throw new InvalidMoveException("Ambiguous move: " + san);
+            }
+            found = move;
+        }
+        if (found == Move.NONE) {
+            throw new InvalidMoveException("Illegal move: " + san);
+        }
+        return found;
+    }
+
+    /**
+     * Writes a legal move for the team to move in SAN, without check marks
+     */
+    public static String toSan(ChessGame game, ChessMove move) {
+        ChessBoard board = game.getBoard();
+        int encoded = Move.of(move, board);
+        int from = Move.from(encoded);
+        int to = Move.to(encoded);
+        ChessPiece.PieceType type = board.getPiece(from).getPieceType();
+        StringBuilder san = new StringBuilder(7);
+        if (type == ChessPiece.PieceType.PAWN) {
+            if (Move.isCapture(encoded)) {
+                san.append(fileOf(from));
+            }
+        } else {
+            san.append(letter(type));
+            appendDisambiguation(game, encoded, type, san);
+        }
+        if (Move.isCapture(encoded)) {
+            san.append('x');
+        }
+        san.append(fileOf(to)).append(rankOf(to));
+        if (move.getPromotionPiece() != null) {
+            san.append('=').append(letter(move.getPromotionPiece()));
+        }
+        return san.toString();
+    }
+
+    private static void appendDisambiguation(ChessGame game, int move, ChessPiece.PieceType type, StringBuilder san) {
+        ChessBoard board = game.getBoard();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(game.getTeamTurn(), moves);
+        int from = Move.from(move);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int other = Move.from(moves.get(i));
+            if (other != from && Move.to(moves.get(i)) == Move.to(move) && board.getPiece(other).getPieceType() == type) {
+                ambiguous = true;
+                sameFile |= (other & 7) == (from & 7);
+                sameRank |= (other >>> 3) == (from >>> 3);
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append(fileOf(from));
+        } else if (!sameRank) {
+            san.append(rankOf(from));
+        } else {
+            san.append(fileOf(from)).append(rankOf(from));
+        }
+    }
+
+    private static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            default -> null;
+        };
+    }
+
+    private static char letter(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case ROOK -> 'R';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static char fileOf(int square) {
+        return (char) ('a' + (square & 7));
+    }
+
+    private static char rankOf(int square) {
+        return (char) ('1' + (square >>> 3));
+    }
+}
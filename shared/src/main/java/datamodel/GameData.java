@@ -2,5 +2,13 @@ package datamodel;
 
 import chess.ChessGame;
 
-public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+/**
+ * @param version counts saved changes to the game, so a write can check nobody else
+ *                changed it first; 0 for a game that has not been saved yet
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game, int version) {
+
+    public GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+        this(gameID, whiteUsername, blackUsername, gameName, game, 0);
+    }
 }
@@ -0,0 +1,84 @@
+package chess;
+
+import chess.perft.PerftSuite;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenTest {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    @Test
+    void startPositionMatchesNewGame() {
+        ChessGame game = ChessGame.fromFen(START);
+        assertEquals(new ChessGame(), game);
+        assertEquals(new ChessGame().positionKey(), game.positionKey());
+        assertEquals(START, new ChessGame().toFen());
+    }
+
+    @Test
+    void roundTripsSuitePositions() {
+        for (PerftSuite.PerftPosition position : PerftSuite.POSITIONS) {
+            ChessGame game = position.createGame();
+            assertEquals(game, ChessGame.fromFen(game.toFen()), position.name());
+            assertEquals(game.toFen(), ChessGame.fromFen(game.toFen()).toFen(), position.name());
+        }
+    }
+
+    @Test
+    void castlingAndEnPassantAreIgnored() {
+        ChessGame game = ChessGame.fromFen("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2");
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w - - 0 2", game.toFen());
+    }
+
+    @Test
+    void countersFollowMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+        assertEquals(1, game.getHalfmoveClock());
+        assertEquals(1, game.getFullmoveNumber());
+        game.makeMove(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        assertEquals(0, game.getHalfmoveClock());
+        assertEquals(2, game.getFullmoveNumber());
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/8/5N2/PPPPPPPP/RNBQKB1R w - - 0 2", game.toFen());
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/8/5N2/PPPPPPPP/RNBQKB1R w - - 0 2", game.copy().toFen());
+    }
+
+    @Test
+    void trailingFieldsAreOptional() {
+        ChessGame game = ChessGame.fromFen("  8/8/8/8/8/8/8/K6k b  ");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals("8/8/8/8/8/8/8/K6k b - - 0 1", game.toFen());
+        assertEquals(7, ChessGame.fromFen(new StringBuilder("8/8/8/8/8/8/8/K6k w - - 7 30")).getHalfmoveClock());
+    }
+
+    @Test
+    void gameStateIsWorkedOut() {
+        assertEquals(ChessGame.GameState.CHECKMATE,
+                ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3").getGameState());
+        assertEquals(ChessGame.GameState.STALEMATE, ChessGame.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").getGameState());
+        assertEquals(ChessGame.GameState.CHECK, ChessGame.fromFen("4k3/8/8/8/8/8/8/4R1K1 b - - 0 1").getGameState());
+    }
+
+    @Test
+    void rejectsMalformedText() {
+        String[] invalid = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN w - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w - - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KK - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - x 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1 extra",
+        };
+        for (String fen : invalid) {
+            assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+}
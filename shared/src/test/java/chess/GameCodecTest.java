@@ -0,0 +1,59 @@
+package chess;
+
+import chess.perft.PerftSuite;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCodecTest {
+
+    @Test
+    void roundTripsSuitePositions() {
+        for (PerftSuite.PerftPosition position : PerftSuite.POSITIONS) {
+            ChessGame game = position.createGame();
+            byte[] encoded = GameCodec.encode(game);
+            assertEquals(GameCodec.ENCODED_LENGTH, encoded.length);
+            ChessGame decoded = GameCodec.decode(encoded);
+            assertEquals(game, decoded, position.name());
+            assertEquals(game.toFen(), decoded.toFen(), position.name());
+            assertEquals(game.positionKey(), decoded.positionKey(), position.name());
+        }
+    }
+
+    @Test
+    void keepsTurnStateAndCounters() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4R1K1 b - - 17 42");
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        assertEquals(ChessGame.GameState.CHECK, decoded.getGameState());
+        assertEquals(17, decoded.getHalfmoveClock());
+        assertEquals(42, decoded.getFullmoveNumber());
+
+        game = new ChessGame();
+        game.setGameState(ChessGame.GameState.RESIGNED);
+        assertEquals(ChessGame.GameState.RESIGNED, GameCodec.decode(GameCodec.encode(game)).getGameState());
+
+        decoded = GameCodec.decode(GameCodec.encode(new ChessGame()));
+        decoded.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+    }
+
+    @Test
+    void isMuchSmallerThanJsonAndDistinguishable() {
+        ChessGame game = new ChessGame();
+        String json = new Gson().toJson(game);
+        assertTrue(json.length() > 10 * GameCodec.ENCODED_LENGTH);
+        assertEquals('{', json.charAt(0));
+        assertNotEquals('{', GameCodec.encode(game)[0]);
+    }
+
+    @Test
+    void rejectsUnknownEncodings() {
+        byte[] encoded = GameCodec.encode(new ChessGame());
+        encoded[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(encoded));
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[]{GameCodec.VERSION, 0}));
+    }
+}
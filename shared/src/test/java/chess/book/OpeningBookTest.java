@@ -0,0 +1,71 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+
+    private static final String PGN = """
+            [Event "One"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {main line} Nc6 (2... d6 3. d4) 3. Bb5 a6 1-0
+
+            [Event "Two"]
+            [Result "1/2-1/2"]
+
+            1. d4 d5 2. c4 1/2-1/2
+
+            [Event "Three"]
+            [Result "0-1"]
+
+            1.e4 c5 2.Nf3 d6 3.Bc4 Nf6 4.O-O Nxe4 0-1
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void buildsAndLooksUpWeightedMoves() throws IOException {
+        BookBuilder builder = new BookBuilder(BookBuilder.DEFAULT_MAX_PLIES);
+        builder.addPgn(new StringReader(PGN));
+        Path file = directory.resolve("test.book");
+        builder.write(file);
+        assertEquals(3, builder.gamesRead());
+        assertEquals(1, builder.gamesCutShort());
+
+        OpeningBook book = OpeningBook.open(file);
+        List<BookMove> moves = book.lookup(new ChessGame());
+
+        // e4 won once (2) and lost once (0); d4 was drawn (1)
+        assertEquals(List.of(
+                new BookMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null), 2),
+                new BookMove(new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null), 1)), moves);
+        assertNotNull(book.pick(new ChessGame(), new Random(1)));
+    }
+
+    @Test
+    void unknownPositionHasNoMoves() throws IOException {
+        BookBuilder builder = new BookBuilder(2);
+        builder.addPgn(new StringReader(PGN));
+        Path file = directory.resolve("short.book");
+        builder.write(file);
+
+        ChessGame game = new ChessGame();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        OpeningBook book = OpeningBook.open(file);
+        assertTrue(book.lookup(game).isEmpty());
+        assertNull(book.pick(game, new Random(1)));
+    }
+}
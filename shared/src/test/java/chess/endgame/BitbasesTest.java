@@ -0,0 +1,79 @@
+package chess.endgame;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitbasesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void probesMappedTableForEitherColor() throws IOException {
+        // White king e1, black king e8, rook a1, black to move
+        int index = Bitbase.index(false, 4, 60, 0);
+        byte[] codes = new byte[Bitbase.POSITIONS];
+        codes[index] = Bitbase.LOSS;
+        new Bitbase(ChessPiece.PieceType.ROOK, ByteBuffer.wrap(Bitbase.pack(codes)))
+                .writeTo(directory.resolve(Bitbases.fileName(ChessPiece.PieceType.ROOK)));
+        Bitbases bitbases = new Bitbases(directory);
+
+        ChessGame whiteRook = game(ChessGame.TeamColor.BLACK, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK, 1);
+        assertEquals(Wdl.LOSS, bitbases.probe(whiteRook));
+
+        // The same position with the colors swapped and the board flipped
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        ChessGame blackRook = new ChessGame();
+        blackRook.setBoard(board);
+        blackRook.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertEquals(Wdl.LOSS, bitbases.probe(blackRook));
+    }
+
+    @Test
+    void drawsNeedNoTableAndMissingTablesAreUncovered() {
+        Bitbases bitbases = new Bitbases(directory);
+        assertEquals(Wdl.DRAW, bitbases.probe(game(ChessGame.TeamColor.WHITE, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT, 4)));
+        assertNull(bitbases.probe(game(ChessGame.TeamColor.WHITE, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN, 4)));
+        assertNull(bitbases.probe(new ChessGame()));
+    }
+
+    @Test
+    void packsFourPositionsPerByte() {
+        byte[] codes = new byte[Bitbase.POSITIONS];
+        codes[0] = Bitbase.WIN;
+        codes[1] = Bitbase.DRAW;
+        codes[3] = Bitbase.LOSS;
+        Bitbase table = new Bitbase(ChessPiece.PieceType.QUEEN, ByteBuffer.wrap(Bitbase.pack(codes)));
+        assertEquals(Bitbase.WIN, table.code(0));
+        assertEquals(Bitbase.DRAW, table.code(1));
+        assertEquals(Bitbase.ILLEGAL, table.code(2));
+        assertEquals(Bitbase.LOSS, table.code(3));
+    }
+
+    /**
+     * Kings on e1 and e8 plus one piece on row 1 of the given column
+     */
+    private static ChessGame game(ChessGame.TeamColor turn, ChessGame.TeamColor owner, ChessPiece.PieceType type, int col) {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(1, col), ChessPiece.of(owner, type));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
@@ -0,0 +1,104 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineTest {
+
+    private static final Duration BUDGET = Duration.ofMillis(500);
+
+    @Test
+    void findsBackRankMate() {
+        ChessGame game = gameWith(ChessGame.TeamColor.WHITE,
+                piece(1, 7, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                piece(1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                piece(8, 7, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING),
+                piece(7, 6, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                piece(7, 7, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                piece(7, 8, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+
+        SearchResult result = new Engine().search(game, BUDGET);
+
+        assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        assertTrue(result.isMate());
+    }
+
+    @Test
+    void takesHangingQueen() {
+        ChessGame game = gameWith(ChessGame.TeamColor.BLACK,
+                piece(1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                piece(4, 4, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN),
+                piece(8, 8, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING),
+                piece(6, 3, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+
+        ChessMove move = new Engine().bestMove(game, BUDGET);
+
+        assertEquals(new ChessMove(ChessPosition.of(6, 3), ChessPosition.of(4, 4), null), move);
+    }
+
+    @Test
+    void helperThreadsAgreeOnForcedMove() {
+        ChessGame game = gameWith(ChessGame.TeamColor.WHITE,
+                piece(1, 7, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                piece(1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                piece(8, 7, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING),
+                piece(7, 6, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                piece(7, 7, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                piece(7, 8, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        Engine engine = new Engine(64, new TranspositionTable(4), 4);
+
+        assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), engine.bestMove(game, BUDGET));
+        assertNotNull(engine.bestMove(new ChessGame(), Duration.ofMillis(100)));
+    }
+
+    @Test
+    void noMoveWhenCheckmated() throws Exception {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 6), ChessPosition.of(3, 6), null));
+        game.makeMove(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        game.makeMove(new ChessMove(ChessPosition.of(2, 7), ChessPosition.of(4, 7), null));
+        game.makeMove(new ChessMove(ChessPosition.of(8, 4), ChessPosition.of(4, 8), null));
+
+        assertNull(new Engine().bestMove(game, BUDGET));
+    }
+
+    @Test
+    void staysWithinBudgetAndLeavesGameAlone() {
+        ChessGame game = new ChessGame();
+        ChessGame before = game.copy();
+        long start = System.nanoTime();
+
+        ChessMove move = new Engine().bestMove(game, Duration.ofMillis(200));
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis < 400, "took " + elapsedMillis + "ms");
+        assertTrue(game.validMoves(move.getStartPosition()).contains(move));
+        assertEquals(before, game);
+    }
+
+    private record Placement(int row, int col, ChessPiece piece) {
+    }
+
+    private static Placement piece(int row, int col, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return new Placement(row, col, ChessPiece.of(color, type));
+    }
+
+    private static ChessGame gameWith(ChessGame.TeamColor turn, Placement... placements) {
+        ChessBoard board = new ChessBoard();
+        for (Placement placement : placements) {
+            board.addPiece(ChessPosition.of(placement.row(), placement.col()), placement.piece());
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
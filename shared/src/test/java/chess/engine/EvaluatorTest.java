@@ -0,0 +1,76 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.MoveList;
+import chess.perft.PerftSuite;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+    @Test
+    void startingPositionIsEven() {
+        assertEquals(0, Evaluator.evaluate(new ChessGame()));
+    }
+
+    @Test
+    void incrementalScoresMatchRebuiltBoard() {
+        Random random = new Random(240);
+        for (PerftSuite.PerftPosition position : PerftSuite.POSITIONS) {
+            ChessGame game = position.createGame();
+            MoveList moves = new MoveList();
+            for (int ply = 0; ply < 60; ply++) {
+                moves.clear();
+                game.generateLegalMoves(game.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+
+                ChessBoard rebuilt = rebuild(game.getBoard(), false);
+                assertEquals(rebuilt.getMiddlegameScore(), game.getBoard().getMiddlegameScore(), position.name());
+                assertEquals(rebuilt.getEndgameScore(), game.getBoard().getEndgameScore(), position.name());
+                assertEquals(rebuilt.getPhase(), game.getBoard().getPhase(), position.name());
+            }
+        }
+    }
+
+    @Test
+    void mirroredPositionScoresTheSame() {
+        for (PerftSuite.PerftPosition position : PerftSuite.POSITIONS) {
+            ChessGame game = position.createGame();
+            ChessGame mirrored = new ChessGame();
+            mirrored.setBoard(rebuild(game.getBoard(), true));
+            mirrored.setTeamTurn(game.getTeamTurn().opponent());
+            assertEquals(Evaluator.evaluate(game), Evaluator.evaluate(mirrored), position.name());
+        }
+    }
+
+    /**
+     * Places every piece on a fresh board, optionally flipped top to bottom with the colors swapped
+     */
+    private static ChessBoard rebuild(ChessBoard board, boolean mirror) {
+        ChessBoard rebuilt = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
+                if (piece == null) {
+                    continue;
+                }
+                if (mirror) {
+                    rebuilt.addPiece(ChessPosition.of(9 - row, col),
+                            ChessPiece.of(piece.getTeamColor().opponent(), piece.getPieceType()));
+                } else {
+                    rebuilt.addPiece(ChessPosition.of(row, col), piece);
+                }
+            }
+        }
+        return rebuilt;
+    }
+}
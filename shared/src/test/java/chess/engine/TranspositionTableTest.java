@@ -0,0 +1,44 @@
+package chess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test
+    void storesAndProbes() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(0x1234_5678_9ABC_DEF0L, 0x0ABC, -4321, 7, TranspositionTable.LOWER_BOUND);
+
+        long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+        assertEquals(0x0ABC, TranspositionTable.move(entry));
+        assertEquals(-4321, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+        assertEquals(TranspositionTable.MISS, table.probe(0x1234_5678_9ABC_DEF1L));
+    }
+
+    @Test
+    void deeperEntryWinsUntilNextSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deep = 5;
+        long shallow = deep + table.capacity(); // same slot, different position
+        table.store(deep, 1, 10, 8, TranspositionTable.EXACT);
+        table.store(shallow, 2, 20, 3, TranspositionTable.EXACT);
+        assertNotEquals(TranspositionTable.MISS, table.probe(deep));
+        assertEquals(TranspositionTable.MISS, table.probe(shallow));
+
+        table.newSearch();
+        table.store(shallow, 2, 20, 3, TranspositionTable.EXACT);
+        assertEquals(TranspositionTable.MISS, table.probe(deep));
+        assertEquals(20, TranspositionTable.score(table.probe(shallow)));
+    }
+
+    @Test
+    void sizeIsBoundedPowerOfTwo() {
+        TranspositionTable table = new TranspositionTable(3);
+        assertEquals(1 << 17, table.capacity());
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+}
@@ -0,0 +1,62 @@
+package chess.perft;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftSuiteTest {
+
+    // Deep enough to reach checks, pins and promotions without slowing the build
+    private static final int TEST_DEPTH = 3;
+
+    @Test
+    void suiteCountsMatch() {
+        for (PerftSuite.PerftPosition position : PerftSuite.POSITIONS) {
+            for (int depth = 1; depth <= TEST_DEPTH; depth++) {
+                assertEquals(position.expected()[depth - 1], position.createGame().perft(depth),
+                        position.name() + " depth " + depth);
+            }
+        }
+    }
+
+    @Test
+    void parallelMatchesSingleThreaded() {
+        for (PerftSuite.PerftPosition position : PerftSuite.POSITIONS) {
+            assertEquals(position.expected()[TEST_DEPTH - 1], PerftRunner.parallelPerft(position.createGame(), TEST_DEPTH),
+                    position.name());
+        }
+    }
+
+    @Test
+    void walkVisitsEveryPosition() {
+        ChessGame game = new ChessGame();
+        AtomicLong visited = new AtomicLong();
+        ParallelPerft walker = new ParallelPerft(ForkJoinPool.commonPool(), 1);
+        long leaves = walker.walk(game, 3, (position, ply) -> visited.incrementAndGet());
+        assertEquals(8_902, leaves);
+        assertEquals(1 + 20 + 400 + 8_902, visited.get());
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        ChessGame game = PerftSuite.POSITIONS.get(1).createGame();
+        Map<ChessMove, Long> divide = game.divide(2);
+        assertEquals(46, divide.size());
+        assertEquals(1_865, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void perftLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessGame before = game.copy();
+        game.perft(3);
+        assertEquals(before, game);
+        assertEquals(before.positionKey(), game.positionKey());
+    }
+}
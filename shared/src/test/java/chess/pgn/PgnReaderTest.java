@@ -0,0 +1,78 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgnReaderTest {
+
+    private static final String PGN = """
+            [Event "Scholar's \\"mate\\""]
+            [White "Alice"]
+            [Black "Bob"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Bc4 {develops} Nc6 (2... Nf6 3. d3) 3. Qh5 $6 Nf6?? ; hopeless
+            4. Qxf7# 1-0
+
+            [Event "No result token"]
+            [Result "1/2-1/2"]
+            % escaped line 1. d4
+            1.d4 d5
+
+            [Event "Two games, one line"]
+            1. c4 * 1. Nf3 0-1
+            """;
+
+    @Test
+    void readsTagsMovesAndResults() throws IOException {
+        PgnReader reader = new PgnReader(new StringReader(PGN));
+
+        PgnGame first = reader.next();
+        assertEquals("Scholar's \"mate\"", first.tag("Event"));
+        assertEquals("Alice", first.tag("White"));
+        assertEquals(List.of("e4", "e5", "Bc4", "Nc6", "Qh5", "Nf6??", "Qxf7#"), first.moves());
+        assertEquals("1-0", first.result());
+
+        PgnGame second = reader.next();
+        assertEquals(List.of("d4", "d5"), second.moves());
+        assertEquals("1/2-1/2", second.result());
+
+        PgnGame third = reader.next();
+        assertEquals(List.of("c4"), third.moves());
+        assertFalse(third.isFinished());
+
+        PgnGame fourth = reader.next();
+        assertEquals(List.of("Nf3"), fourth.moves());
+        assertEquals("0-1", fourth.result());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void replaysThroughMakeMove() throws IOException, InvalidMoveException {
+        PgnGame game = new PgnReader(new StringReader(PGN)).next();
+        assertEquals(ChessGame.GameState.CHECKMATE, game.replay().getGameState());
+    }
+
+    @Test
+    void replayStartsFromFenTag() throws IOException, InvalidMoveException {
+        PgnGame game = new PgnReader(new StringReader("""
+                [FEN "4k3/8/4K3/8/8/8/8/7R w - - 0 1"]
+
+                1. Rh8# 1-0
+                """)).next();
+        assertEquals(ChessGame.GameState.CHECKMATE, game.replay().getGameState());
+    }
+
+    @Test
+    void replayRejectsUnplayableMoves() throws IOException {
+        PgnGame game = new PgnReader(new StringReader("1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O *")).next();
+        assertThrows(InvalidMoveException.class, game::replay);
+    }
+}
@@ -0,0 +1,41 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SanParserTest {
+
+    @Test
+    void parsesPawnAndPieceMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertEquals(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null), SanParser.parse(game, "e4"));
+        assertEquals(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null), SanParser.parse(game, "Nf3!?"));
+    }
+
+    @Test
+    void roundTripsCapturesAndDisambiguation() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String san : new String[]{"e4", "d5", "exd5", "Nf6", "Nf3", "Nbd7", "Nc3", "Nb6", "Nd4", "Nbxd5", "Ndb5"}) {
+            ChessMove move = SanParser.parse(game, san);
+            assertEquals(san, SanParser.toSan(game, move));
+            game.makeMove(move);
+        }
+    }
+
+    @Test
+    void rejectsCastlingAndAmbiguity() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertThrows(InvalidMoveException.class, () -> SanParser.parse(game, "O-O"));
+        assertThrows(InvalidMoveException.class, () -> SanParser.parse(game, "e5"));
+        for (String san : new String[]{"Nf3", "a6", "d4", "a5"}) {
+            game.makeMove(SanParser.parse(game, san));
+        }
+        assertThrows(InvalidMoveException.class, () -> SanParser.parse(game, "Nd2"));
+        assertEquals("Nbd2", SanParser.toSan(game, SanParser.parse(game, "Nbd2")));
+    }
+}